@@ -0,0 +1,105 @@
+package com.holybuckets.traveler;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
+
+/**
+ * LogFilter - Per log id sampling and rate limiting
+ *
+ * A rule may sample an id, keeping each message with a fixed probability, and rate limit it
+ * with a token bucket of the given rate and burst. The bucket is kept as a single atomic
+ * "theoretical arrival time" (GCRA), so checking a rule is one map lookup and at most a few
+ * CAS operations, with no locks and no allocation. Ids without a rule are always allowed.
+ * Suppressed messages are counted per id and reported by the appender as periodic summaries.
+ */
+class LogFilter {
+
+    private static final Map<String, Rule> RULES = new ConcurrentHashMap<>();
+
+    /**
+     * @param sampleRate fraction of messages kept, 1 keeps all
+     * @param perSecond sustained messages per second, 0 for no rate limit
+     * @param burst messages allowed at once before the rate applies
+     */
+    static void setRule(String logId, double sampleRate, double perSecond, int burst) {
+        RULES.put(logId, new Rule(sampleRate, perSecond, burst));
+    }
+
+    /**
+     * @return messages the rule suppressed since they were last reported
+     */
+    static long removeRule(String logId)
+    {
+        Rule rule = RULES.remove(logId);
+        return (rule == null) ? 0 : rule.suppressed.getAndSet(0);
+    }
+
+    /**
+     * Removes every rule, reporting each one's unreported suppressed count
+     */
+    static void clearRules(BiConsumer<String, Long> report)
+    {
+        for (String logId : RULES.keySet()) {
+            long count = removeRule(logId);
+            if (count > 0) report.accept(logId, count);
+        }
+    }
+
+    /**
+     * True if a message with this id should be logged, checked before the message is built
+     */
+    static boolean allow(String logId)
+    {
+        if (logId == null) return true;
+        Rule rule = RULES.get(logId);
+        if (rule == null) return true;
+        if (rule.allow()) return true;
+        rule.suppressed.incrementAndGet();
+        return false;
+    }
+
+    /**
+     * Reports and resets the suppressed count of every id that suppressed messages
+     */
+    static void drainSuppressed(BiConsumer<String, Long> report)
+    {
+        RULES.forEach((logId, rule) -> {
+            long count = rule.suppressed.getAndSet(0);
+            if (count > 0) report.accept(logId, count);
+        });
+    }
+
+    private static class Rule {
+        private final double sampleRate;
+        private final long intervalNanos;       //time per token, 0 = no rate limit
+        private final long burstNanos;          //how far the arrival time may run ahead of now
+        private final AtomicLong arrivalTime;
+        private final AtomicLong suppressed;
+
+        private Rule(double sampleRate, double perSecond, int burst) {
+            this.sampleRate = sampleRate;
+            this.intervalNanos = (perSecond > 0) ? (long) (1_000_000_000L / perSecond) : 0;
+            this.burstNanos = intervalNanos * Math.max(0, burst - 1);
+            this.arrivalTime = new AtomicLong(System.nanoTime());
+            this.suppressed = new AtomicLong();
+        }
+
+        private boolean allow()
+        {
+            if (sampleRate < 1 && ThreadLocalRandom.current().nextDouble() >= sampleRate) return false;
+            if (intervalNanos == 0) return true;
+
+            long now = System.nanoTime();
+            while (true)
+            {
+                long tat = arrivalTime.get();
+                long start = (tat - now < 0) ? now : tat;
+                if (start - now > burstNanos) return false;
+                if (arrivalTime.compareAndSet(tat, start + intervalNanos)) return true;
+            }
+        }
+    }
+}
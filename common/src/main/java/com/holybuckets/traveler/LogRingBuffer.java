@@ -0,0 +1,61 @@
+package com.holybuckets.traveler;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * LogRingBuffer - Bounded lock-free multi-producer, single-consumer queue of log records
+ *
+ * Producers claim a sequence with a CAS on the tail and publish the record into its slot,
+ * the single appender thread consumes slots in sequence order and clears them. When the
+ * buffer is full offer() fails immediately, producers never wait for the consumer.
+ */
+class LogRingBuffer<T> {
+
+    private final AtomicReferenceArray<T> slots;
+    private final int mask;
+    private final AtomicLong tail;      //next sequence to claim, producers
+    private volatile long head;         //next sequence to consume, consumer only writes
+
+    /**
+     * @param capacity rounded up to a power of two
+     */
+    LogRingBuffer(int capacity)
+    {
+        int size = Integer.highestOneBit(Math.max(2, capacity - 1)) << 1;
+        this.slots = new AtomicReferenceArray<>(size);
+        this.mask = size - 1;
+        this.tail = new AtomicLong(0);
+        this.head = 0;
+    }
+
+    /**
+     * @return false if the buffer is full and the record was not added
+     */
+    boolean offer(T record)
+    {
+        while (true)
+        {
+            long t = tail.get();
+            if (t - head > mask) return false;
+            if (tail.compareAndSet(t, t + 1)) {
+                slots.set((int) (t & mask), record);    //full store, ordered before the caller's idle check
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Consumer only. Returns the next record, or null if none is published yet.
+     */
+    T poll()
+    {
+        long h = head;
+        int index = (int) (h & mask);
+        T record = slots.get(index);
+        if (record == null) return null;     //empty, or claimed but not yet published
+        slots.lazySet(index, null);
+        head = h + 1;
+        return record;
+    }
+}
@@ -4,7 +4,9 @@ import com.holybuckets.foundation.LoggerBase;
 import com.mojang.logging.LogUtils;
 import org.slf4j.Logger;
 
-import java.util.HashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Supplier;
 
 public class LoggerProject extends LoggerBase {
 
@@ -12,27 +14,174 @@ public class LoggerProject extends LoggerBase {
     public static final String PREFIX = Constants.MOD_NAME;
     public static final Boolean DEBUG = true;
 
-    public static synchronized void logInfo(String logId, String message) {
-        LoggerBase.logInfo(PREFIX, logId, message);
+    //** ASYNC PIPELINE
+    // Records are queued on a lock-free ring and written by one appender thread, callers never block.
+    // Supplier overloads skip building the message when the level is disabled, hot paths use
+    // allowInfo/allowDebug with the Allowed methods to skip the lambda as well.
+
+    private static final int BUFFER_SIZE = 4096;
+    private static final int LEVEL_INFO = 0;
+    private static final int LEVEL_WARN = 1;
+    private static final int LEVEL_ERROR = 2;
+    private static final int LEVEL_DEBUG = 3;
+
+    private static final LogRingBuffer<LogRecord> BUFFER = new LogRingBuffer<>(BUFFER_SIZE);
+    private static final AtomicLong DROPPED = new AtomicLong();
+    private static final Thread APPENDER = startAppender();
+
+    public static void logInfo(String logId, String message) {
+        if (LogFilter.allow(logId))
+            enqueue(LEVEL_INFO, logId, message);
+    }
+
+    public static void logInfo(String logId, Supplier<String> message) {
+        if (LogFilter.allow(logId))
+            enqueue(LEVEL_INFO, logId, message.get());
+    }
+
+    public static void logWarning(String logId, String string) {
+        if (LogFilter.allow(logId))
+            enqueue(LEVEL_WARN, logId, string);
+    }
+
+    public static void logWarning(String logId, Supplier<String> message) {
+        if (LogFilter.allow(logId))
+            enqueue(LEVEL_WARN, logId, message.get());
     }
 
-    public static synchronized void logWarning(String logId, String string) {
-        LoggerBase.logWarning(PREFIX, logId, string);
+    public static void logError(String logId, String string) {
+        if (LogFilter.allow(logId))
+            enqueue(LEVEL_ERROR, logId, string);
     }
 
-    public static synchronized void logError(String logId, String string) {
-        LoggerBase.logError(PREFIX, logId, string);
+    public static void logError(String logId, Supplier<String> message) {
+        if (LogFilter.allow(logId))
+            enqueue(LEVEL_ERROR, logId, message.get());
+    }
+
+    public static void logDebug(String logId, String string) {
+        if (DEBUG_MODE && LogFilter.allow(logId))
+            enqueue(LEVEL_DEBUG, logId, string);
+    }
+
+    public static void logDebug(String logId, Supplier<String> message) {
+        if (DEBUG_MODE && LogFilter.allow(logId))
+            enqueue(LEVEL_DEBUG, logId, message.get());
+    }
+
+    /**
+     * Hot path logging without a message lambda: check allowInfo/allowDebug first, build the
+     * message only when it returns true and pass it to the matching Allowed method, which does
+     * not filter again. Nothing is allocated when the id is filtered out.
+     */
+    public static boolean allowInfo(String logId) {
+        return LogFilter.allow(logId);
     }
 
-    public static synchronized void logDebug(String logId, String string) {
-        if (DEBUG_MODE)
-            LoggerBase.logDebug(PREFIX, logId, string);
+    public static boolean allowDebug(String logId) {
+        return DEBUG_MODE && LogFilter.allow(logId);
     }
 
-    public static synchronized void logInit(String logId, String string) {
+    public static void logInfoAllowed(String logId, String message) {
+        enqueue(LEVEL_INFO, logId, message);
+    }
+
+    public static void logDebugAllowed(String logId, String message) {
+        enqueue(LEVEL_DEBUG, logId, message);
+    }
+
+    public static void logInit(String logId, String string) {
         logDebug(logId, "--------" + string.toUpperCase() + " INITIALIZED --------");
     }
 
+    private static void enqueue(int level, String logId, String message) {
+        if (!BUFFER.offer(new LogRecord(level, logId, message)))
+            DROPPED.incrementAndGet();
+        if (appenderIdle)
+            LockSupport.unpark(APPENDER);
+    }
+
+    private static Thread startAppender()
+    {
+        Thread thread = new Thread(LoggerProject::runAppender, Constants.MOD_ID + "-log-appender");
+        thread.setDaemon(true);
+        thread.start();
+        Runtime.getRuntime().addShutdownHook(new Thread(LoggerProject::drain, Constants.MOD_ID + "-log-flush"));
+        return thread;
+    }
+
+    /**
+     * Drains until the ring is empty, then parks until a producer unparks it or the idle
+     * timeout passes for the next summary check. Idle is raised before the second drain so a
+     * record queued in between is either drained or unparks the thread.
+     */
+    private static void runAppender()
+    {
+        while (true)
+        {
+            try {
+                writeSummaries();
+                if (drain() > 0) continue;
+                appenderIdle = true;
+                if (drain() == 0)
+                    LockSupport.parkNanos(APPENDER_IDLE_NANOS);
+                appenderIdle = false;
+            } catch (Throwable t) {
+                appenderIdle = false;
+                LOGGER.error("[{}] Log appender failed: {}", PREFIX, t.toString());
+                LockSupport.parkNanos(APPENDER_IDLE_NANOS);
+            }
+        }
+    }
+
+    private static final long APPENDER_IDLE_NANOS = 100_000_000L;      //100ms
+    private static volatile boolean appenderIdle;
+
+    /**
+     * Writes every queued record, returns the number written. Called by the appender
+     * thread and once more on shutdown.
+     */
+    private static synchronized int drain()
+    {
+        int count = 0;
+        LogRecord record;
+        while ((record = BUFFER.poll()) != null) {
+            write(record);
+            count++;
+        }
+
+        long dropped = DROPPED.getAndSet(0);
+        if (dropped > 0)
+            LoggerBase.logWarning(PREFIX, "000100", "Log buffer full, dropped " + dropped + " messages");
+        return count;
+    }
+
+    private static void write(LogRecord record)
+    {
+        try {
+            switch (record.level) {
+                case LEVEL_INFO -> LoggerBase.logInfo(PREFIX, record.logId, record.message);
+                case LEVEL_WARN -> LoggerBase.logWarning(PREFIX, record.logId, record.message);
+                case LEVEL_ERROR -> LoggerBase.logError(PREFIX, record.logId, record.message);
+                default -> LoggerBase.logDebug(PREFIX, record.logId, record.message);
+            }
+        } catch (Exception e) {
+            LOGGER.error("[{}] Failed to write log {}: {}", PREFIX, record.logId, e.getMessage());
+        }
+    }
+
+    private static class LogRecord {
+        private final int level;
+        private final String logId;
+        private final String message;
+
+        private LogRecord(int level, String logId, String message) {
+            this.level = level;
+            this.logId = logId;
+            this.message = message;
+        }
+    }
+
 
     //Client side logging
     public static void logClientInfo(String message) {
@@ -78,49 +227,53 @@ public class LoggerProject extends LoggerBase {
     }
 
 
-    //create a statatic final hashmap called FILTER_RULES that holds log entries
-    private static final HashMap<String, LogEntry> FILTER_RULES = new HashMap<>();
-    /*
-    static {
-        //FILTER_RULES.put("INFO", new LogEntry("INFO", "000", PREFIX, "This is an info message"));
-        FILTER_RULES.put("003001", new LogEntry(null, null, null, null, 0.1f));
-        FILTER_RULES.put("003002", new LogEntry(null, null, null, null, 0.1f));
-        FILTER_RULES.put("003007", new LogEntry(null, null, null, "minecraft:", null));
-        FILTER_RULES.put("007002", new LogEntry(null, null, null, "1", null));
+    //** FILTERING
+    // Checked before a message is built or queued, see LogFilter. Rules come from the logging
+    // section of the config and are reapplied on every server start.
 
-        //FILTER_RULES.put("003005", new LogEntry(null, null, null, null, null));
-        //FILTER_RULES.put("003006", new LogEntry(null, null, null, "minecraft", null));
-        FILTER_RULES.put("002020", new LogEntry(null, null, null, null, null));
-        FILTER_RULES.put("002004", new LogEntry(null, null, null, null, null));
-        FILTER_RULES.put("002032", new LogEntry(null, null, null, null, null));
-        //FILTER_RULES.put("002028", new LogEntry(null, null, null, null, 0.01f));
-        FILTER_RULES.put("002028", new LogEntry(null, null, null, null, 0.001f));
-        FILTER_RULES.put("002025", new LogEntry(null, null, null, null, 0.01f));
-        FILTER_RULES.put("002026", new LogEntry(null, null, null, null, 0.01f));
-        FILTER_RULES.put("002027", new LogEntry(null, null, null, null, 0.01f));
-        FILTER_RULES.put("002015", new LogEntry(null, null, null, null, 0.01f));
-        FILTER_RULES.put("002033", new LogEntry(null, null, null, null, 0.01f));
+    private static final long SUMMARY_INTERVAL_NANOS = 60_000_000_000L;     //1 minute
+    private static long lastSummary = System.nanoTime();
 
+    /**
+     * Samples and rate limits a log id
+     * @param sampleRate fraction of messages kept, 1 keeps all
+     * @param perSecond sustained messages per second, 0 for no rate limit
+     * @param burst messages allowed at once before the rate applies
+     */
+    public static void setLogRule(String logId, double sampleRate, double perSecond, int burst) {
+        LogFilter.setRule(logId, sampleRate, perSecond, burst);
     }
 
+    /**
+     * Removes a log id's rule, messages it suppressed since the last summary are reported first
+     */
+    public static void removeLogRule(String logId) {
+        reportSuppressed(logId, LogFilter.removeRule(logId));
+    }
 
-    private static LogEntry applySamplingRate(LogEntry entry)
-    {
-        boolean containsFilterableType = FILTER_RULES.containsKey(entry.type);
-        boolean containsFilterableId = FILTER_RULES.containsKey(entry.id);
+    /**
+     * Removes every rule, called before the configured rules are applied
+     */
+    public static void clearLogRules() {
+        LogFilter.clearRules(LoggerProject::reportSuppressed);
+    }
 
-        if (containsFilterableType) {
-            return FILTER_RULES.get(entry.type);
-        }
+    private static void reportSuppressed(String logId, long count) {
+        if (count > 0)
+            enqueue(LEVEL_INFO, logId, "Suppressed " + count + " messages before its log rule was removed");
+    }
 
-        if (containsFilterableId) {
-            return FILTER_RULES.get(entry.id);
-        }
-        // Apply sampling rate
-        //return Math.random() < SAMPLE_RATE;
-        return null;
+    /**
+     * Appender thread only, reports suppressed counts once per interval
+     */
+    private static void writeSummaries()
+    {
+        long now = System.nanoTime();
+        if (now - lastSummary < SUMMARY_INTERVAL_NANOS) return;
+        lastSummary = now;
+        LogFilter.drainSuppressed((logId, count) ->
+            LoggerBase.logInfo(PREFIX, logId, "Suppressed " + count + " messages in the last minute"));
     }
-    */
 
 
 }
@@ -7,6 +7,7 @@ import com.holybuckets.traveler.config.ModConfig;
 import com.holybuckets.traveler.config.TravelerRewardsConfig;
 import com.holybuckets.traveler.core.ManagedTraveler;
 import com.holybuckets.traveler.core.AnvilRecipeManager;
+import com.holybuckets.traveler.core.StructureIndex;
 import com.holybuckets.traveler.item.ModItems;
 import com.holybuckets.traveler.menu.ModMenus;
 import net.blay09.mods.balm.api.Balm;
@@ -53,6 +54,7 @@ public class TravelerRewardsMain {
         EventRegistrar registrar = EventRegistrar.getInstance();
         //ChallengeBlockBehavior.init(registrar);
         registrar.registerOnLevelLoad(this::onLevelLoad, EventPriority.Lowest);
+        registrar.registerOnLevelUnload(this::onLevelUnload, EventPriority.Lowest);
         ModMenus.init(registrar);
         ModConfig.init(registrar);
         ManagedTraveler.init(registrar);
@@ -71,11 +73,20 @@ public class TravelerRewardsMain {
         //this.DEV_MODE = CONFIG.devMode;
         this.DEV_MODE = false;
         STRUCTURE_APIS.clear();
+        StructureIndex.clear();
     }
 
     private void onLevelLoad(LevelLoadingEvent.Load event) {
         if(event.getLevel() instanceof ServerLevel level) {
             STRUCTURE_APIS.put(level, new StructureAPI(level));
+            StructureIndex.onLevelLoad(level);
+        }
+    }
+
+    private void onLevelUnload(LevelLoadingEvent.Unload event) {
+        if(event.getLevel() instanceof ServerLevel level) {
+            STRUCTURE_APIS.remove(level);
+            StructureIndex.onLevelUnload(level);
         }
     }
 
@@ -7,10 +7,12 @@ import net.minecraft.client.Minecraft;
 import net.minecraft.client.gui.GuiGraphics;
 import net.minecraft.client.gui.screens.Screen;
 import net.minecraft.client.gui.screens.inventory.AbstractContainerScreen;
+import net.minecraft.world.entity.player.Inventory;
 import net.minecraft.world.entity.player.Player;
+import net.minecraft.world.inventory.AbstractContainerMenu;
 import net.minecraft.world.inventory.Slot;
 
-import java.util.Set;
+import java.util.Arrays;
 
 /**
  * Renders visual indicators for soulbound inventory slots
@@ -52,6 +54,7 @@ public class SoulboundSlotRenderer {
     private static final int SLOT_SIZE = 16; // Standard Minecraft slot size
     private static final int HOTBAR_SLOTS = 9;
     private static final int HOTBAR_Y_OFFSET = 22; // Distance from bottom of screen to hotbar top
+    private static final int BORDER_Z = 300;
 
     /**
      * Renders soulbound indicators on the in-game hotbar (HUD)
@@ -68,12 +71,47 @@ public class SoulboundSlotRenderer {
         ManagedTraveler traveler = ManagedTraveler.localTraveler;
         if (traveler == null) return;
 
-        Set<Integer> soulboundSlots = traveler.getSoulboundSlots();
-        if (soulboundSlots.isEmpty()) return;
+        long soulboundSlots = traveler.getSoulboundMask();
+        if (soulboundSlots == 0) return;
 
         GuiGraphics graphics = event.getGuiGraphics();
         int screenWidth = mc.getWindow().getGuiScaledWidth();
         int screenHeight = mc.getWindow().getGuiScaledHeight();
+        int selectedHotbarIndex = player.getInventory().selected;
+        boolean showOffhand = !player.getOffhandItem().isEmpty();
+
+        if (soulboundSlots != hotbarCacheMask || selectedHotbarIndex != hotbarCacheSelected
+            || screenWidth != hotbarCacheWidth || screenHeight != hotbarCacheHeight
+            || showOffhand != hotbarCacheOffhand)
+        {
+            rebuildHotbarQuads(soulboundSlots, selectedHotbarIndex, screenWidth, screenHeight, showOffhand);
+        }
+        if (hotbarQuadCount == 0) return;
+
+        int color = getPulseColor();
+        for (int i = 0; i < hotbarQuadCount * 4; i += 4) {
+            graphics.fill(hotbarQuads[i], hotbarQuads[i + 1], hotbarQuads[i + 2], hotbarQuads[i + 3], BORDER_Z, color);
+        }
+    }
+
+    // Cached hotbar border geometry, rebuilt only when one of its inputs changes
+    private static final int[] hotbarQuads = new int[(HOTBAR_SLOTS + 1) * 4 * 4];   //4 quads of x1,y1,x2,y2 per slot
+    private static int hotbarQuadCount = 0;
+    private static long hotbarCacheMask = 0;
+    private static int hotbarCacheSelected = -1;
+    private static int hotbarCacheWidth = -1;
+    private static int hotbarCacheHeight = -1;
+    private static boolean hotbarCacheOffhand = false;
+
+    private static void rebuildHotbarQuads(long soulboundSlots, int selectedHotbarIndex,
+                                           int screenWidth, int screenHeight, boolean showOffhand)
+    {
+        hotbarCacheMask = soulboundSlots;
+        hotbarCacheSelected = selectedHotbarIndex;
+        hotbarCacheWidth = screenWidth;
+        hotbarCacheHeight = screenHeight;
+        hotbarCacheOffhand = showOffhand;
+        hotbarQuadCount = 0;
 
         // Hotbar is centered at bottom of screen
         // Hotbar spans: 9 slots * 20 pixels per slot (16px slot + 4px spacing) = 182 pixels total
@@ -81,31 +119,54 @@ public class SoulboundSlotRenderer {
         int hotbarStartX = (screenWidth / 2) - (hotbarWidth / 2);
         int hotbarY = screenHeight - HOTBAR_Y_OFFSET;
 
-
-        int selectedHotbarIndex = player.getInventory().selected;
-
         for (int hotbarSlot = 0; hotbarSlot < HOTBAR_SLOTS; hotbarSlot++) {
-            if (soulboundSlots.contains(hotbarSlot)) {
+            if (ManagedTraveler.isSlotSoulbound(soulboundSlots, hotbarSlot)) {
                 int slotX = hotbarStartX + (hotbarSlot * 20) + 3;
                 int slotY = hotbarY + 3;
 
                 boolean isSelected = (hotbarSlot == selectedHotbarIndex);
                 int thickness = isSelected ? BORDER_THICKNESS_SELECTED : BORDER_THICKNESS;
 
-                boolean suppressRightBorder = soulboundSlots.contains(hotbarSlot) && (hotbarSlot + 1 == selectedHotbarIndex);
-                boolean suppressLeftBorder  = soulboundSlots.contains(hotbarSlot) && (hotbarSlot - 1 == selectedHotbarIndex);
+                boolean suppressRightBorder = (hotbarSlot + 1 == selectedHotbarIndex);
+                boolean suppressLeftBorder  = (hotbarSlot - 1 == selectedHotbarIndex);
 
-                drawPulsatingBorder(graphics, slotX, slotY, thickness, suppressLeftBorder, suppressRightBorder);
+                addBorderQuads(slotX, slotY, thickness, suppressLeftBorder, suppressRightBorder);
             }
         }
 
-        if (soulboundSlots.contains(40) && !player.getOffhandItem().isEmpty()) {
+        if (ManagedTraveler.isSlotSoulbound(soulboundSlots, ManagedTraveler.OFFHAND_SLOT_INDEX) && showOffhand) {
             int offhandX = hotbarStartX - 26;  // 29px left of hotbar start
             int offhandY = hotbarY + 3;
-            drawPulsatingBorder(graphics, offhandX, offhandY, BORDER_THICKNESS, false, false);
+            addBorderQuads(offhandX, offhandY, BORDER_THICKNESS, false, false);
         }
     }
 
+    /**
+     * Appends the same border rectangles drawSimpleBorder fills to the hotbar cache
+     */
+    private static void addBorderQuads(int x, int y, int thickness, boolean suppressLeftBorder, boolean suppressRightBorder)
+    {
+        int topBottomLeft  = suppressLeftBorder  ? x : x - thickness;
+        int topBottomRight = suppressRightBorder ? x + SLOT_SIZE : x + SLOT_SIZE + thickness;
+
+        addQuad(topBottomLeft, y - thickness, topBottomRight, y);
+        addQuad(topBottomLeft, y + SLOT_SIZE, topBottomRight, y + SLOT_SIZE + thickness);
+        if (!suppressLeftBorder) {
+            addQuad(x - thickness, y, x, y + SLOT_SIZE);
+        }
+        if (!suppressRightBorder) {
+            addQuad(x + SLOT_SIZE, y, x + SLOT_SIZE + thickness, y + SLOT_SIZE);
+        }
+    }
+
+    private static void addQuad(int x1, int y1, int x2, int y2) {
+        int i = hotbarQuadCount++ * 4;
+        hotbarQuads[i] = x1;
+        hotbarQuads[i + 1] = y1;
+        hotbarQuads[i + 2] = x2;
+        hotbarQuads[i + 3] = y2;
+    }
+
     /**
      * Renders soulbound indicators on inventory/container screens
      * Called from ContainerScreenDrawEvent.Foreground
@@ -118,8 +179,8 @@ public class SoulboundSlotRenderer {
         ManagedTraveler traveler = ManagedTraveler.localTraveler;
         if (traveler == null) return;
 
-        Set<Integer> soulboundSlots = traveler.getSoulboundSlots();
-        if (soulboundSlots.isEmpty()) return;
+        long soulboundSlots = traveler.getSoulboundMask();
+        if (soulboundSlots == 0) return;
 
         // Get screen and verify it's a container screen
         Screen screenBase = event.getScreen();
@@ -128,49 +189,65 @@ public class SoulboundSlotRenderer {
         AbstractContainerScreen<?> screen = (AbstractContainerScreen<?>) screenBase;
         GuiGraphics graphics = event.getGuiGraphics();
 
-        // Get mouse position for hover detection
-        double mouseX = mc.mouseHandler.xpos() * mc.getWindow().getGuiScaledWidth() / mc.getWindow().getScreenWidth();
-        double mouseY = mc.mouseHandler.ypos() * mc.getWindow().getGuiScaledHeight() / mc.getWindow().getScreenHeight();
-
-        // Iterate through all slots in the screen and check if they're soulbound
-        for (Slot slot : screen.getMenu().slots) {
-            if (isPlayerInventorySlot(slot, player))
-            {
-                int slotIndex = getPlayerSlotIndex(slot, player);
-
-                if (soulboundSlots.contains(slotIndex)) {
-                    int thickness = BORDER_THICKNESS;
-
-                    if (USE_SIMPLE_BLACK_BORDER) {
-                        drawSimpleBorder(graphics, slot.x, slot.y, thickness, BORDER_COLOR_BLACK, false, false);
-                    } else if (ENABLE_PULSATING_INVENTORY) {
-                        //drawPulsatingBorder(graphics, slot.x, slot.y, thickness, false, false);
-                    } else {
-                        //drawSimpleBorder(graphics, slot.x, slot.y, thickness, PULSE_COLOR_BRIGHT, false, false);
-                    }
-                }
+        AbstractContainerMenu menu = screen.getMenu();
+        if (menu != slotCacheMenu || menu.slots.size() != slotCacheSize || player.getInventory() != slotCacheInventory) {
+            rebuildSlotPositions(menu, player);
+        }
+
+        // Only soulbound slots are visited, independent of the container size
+        for (long mask = soulboundSlots; mask != 0; mask &= mask - 1)
+        {
+            int slotIndex = Long.numberOfTrailingZeros(mask);
+            if (slotIndex >= PLAYER_SLOTS || slotPositions[slotIndex] == NO_SLOT) continue;
+            int x = (int) (slotPositions[slotIndex] >> 32);
+            int y = (int) slotPositions[slotIndex];
+            int thickness = BORDER_THICKNESS;
+
+            if (USE_SIMPLE_BLACK_BORDER) {
+                drawSimpleBorder(graphics, x, y, thickness, BORDER_COLOR_BLACK, false, false);
+            } else if (ENABLE_PULSATING_INVENTORY) {
+                drawSimpleBorder(graphics, x, y, thickness, getPulseColor(), false, false);
             }
         }
     }
 
+    // Player slot index -> screen position of the open menu, packed as (x << 32 | y)
+    private static final int PLAYER_SLOTS = ManagedTraveler.OFFHAND_SLOT_INDEX + 1;
+    private static final long NO_SLOT = Long.MIN_VALUE;
+    private static final long[] slotPositions = new long[PLAYER_SLOTS];
+    private static AbstractContainerMenu slotCacheMenu = null;
+    private static Inventory slotCacheInventory = null;
+    private static int slotCacheSize = -1;
+
     /**
-     * Draws a pulsating purple/black border around a slot
-     *
-     * @param graphics GuiGraphics for rendering
-     * @param x Slot X position (top-left corner)
-     * @param y Slot Y position (top-left corner)
-     * @param thickness Border thickness in pixels
+     * Maps each player inventory slot shown by the menu to its position, once per menu
+     * or whenever the menu's slot list changes size (creative tabs)
      */
-    private static void drawPulsatingBorder(GuiGraphics graphics, int x, int y, int thickness,
-                                            boolean suppressLeftBorder, boolean suppressRightBorder) {
+    private static void rebuildSlotPositions(AbstractContainerMenu menu, Player player)
+    {
+        slotCacheMenu = menu;
+        slotCacheInventory = player.getInventory();
+        slotCacheSize = menu.slots.size();
+        Arrays.fill(slotPositions, NO_SLOT);
+
+        for (Slot slot : menu.slots) {
+            int slotIndex = getPlayerSlotIndex(slot, player);
+            if (slotIndex < 0 || slotIndex >= PLAYER_SLOTS) continue;
+            if (slotPositions[slotIndex] != NO_SLOT) continue;     //a slot shown twice keeps its first position
+            slotPositions[slotIndex] = ((long) slot.x << 32) | (slot.y & 0xFFFFFFFFL);
+        }
+    }
+
+    /**
+     * Current color of the pulsating border
+     */
+    private static int getPulseColor() {
         long currentTime = System.currentTimeMillis();
         float pulseProgress = (currentTime % (long)PULSE_SPEED) / PULSE_SPEED;
         float pulse = (float) Math.sin(pulseProgress * Math.PI * 2.0) * 0.5f + 0.5f;
 
         float alpha = PULSE_MIN_ALPHA + (pulse * (PULSE_MAX_ALPHA - PULSE_MIN_ALPHA));
-        int color = interpolateColor(PULSE_COLOR_DARK, PULSE_COLOR_BRIGHT, alpha);
-
-        drawSimpleBorder(graphics, x, y, thickness, color, suppressLeftBorder, suppressRightBorder);
+        return interpolateColor(PULSE_COLOR_DARK, PULSE_COLOR_BRIGHT, alpha);
     }
 
     /**
@@ -184,7 +261,7 @@ public class SoulboundSlotRenderer {
      */
     private static void drawSimpleBorder(GuiGraphics graphics, int x, int y, int thickness, int color,
                                          boolean suppressLeftBorder, boolean suppressRightBorder) {
-        int z = 300;
+        int z = BORDER_Z;
 
         int topBottomLeft  = suppressLeftBorder  ? x : x - thickness;
         int topBottomRight = suppressRightBorder ? x + SLOT_SIZE : x + SLOT_SIZE + thickness;
@@ -33,6 +33,7 @@ public class CommandList {
         //CommandRegistry.register(LocateClusters::limitCountSpecifyBlockType);
 
         CommandRegistry.register(ClearSoulboundSlots::register);
+        CommandRegistry.register(Perf::register);
     }
 
     //1. Locate Clusters
@@ -116,5 +117,41 @@ public class CommandList {
         }
     }
 
+    //3. Traveler tick performance
+    private static class Perf
+    {
+        private static final int DEFAULT_TOP = 5;
+
+        private static LiteralArgumentBuilder<CommandSourceStack> register() {
+            return Commands.literal(PREFIX)
+                .then(Commands.literal("perf")
+                    .requires(source -> source.hasPermission(2))
+                    .executes(context -> execute(context.getSource(), DEFAULT_TOP))
+                    .then(Commands.literal("reset")
+                        .executes(context -> reset(context.getSource()))
+                    )
+                    .then(Commands.argument("top", IntegerArgumentType.integer(1, 50))
+                        .executes(context -> execute(context.getSource(), IntegerArgumentType.getInteger(context, "top")))
+                    )
+                );
+        }
+
+        private static int execute(CommandSourceStack source, int top)
+        {
+            List<String> lines = ManagedTravelerApi.getTickPerfReport(top);
+            for (String line : lines) {
+                source.sendSuccess(() -> Component.literal(line), false);
+            }
+            return 1;
+        }
+
+        private static int reset(CommandSourceStack source)
+        {
+            ManagedTravelerApi.resetTickPerf();
+            source.sendSuccess(() -> Component.literal("Traveler tick timings reset"), false);
+            return 1;
+        }
+    }
+
 }
 //END CLASS COMMANDLIST
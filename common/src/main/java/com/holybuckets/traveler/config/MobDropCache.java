@@ -0,0 +1,162 @@
+package com.holybuckets.traveler.config;
+
+import com.holybuckets.traveler.Constants;
+import com.holybuckets.traveler.LoggerProject;
+import net.minecraft.SharedConstants;
+import net.minecraft.core.registries.BuiltInRegistries;
+import net.minecraft.resources.ResourceLocation;
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.server.packs.repository.Pack;
+import net.minecraft.server.packs.resources.Resource;
+import net.minecraft.server.packs.resources.ResourceManager;
+import net.minecraft.world.entity.EntityType;
+import net.minecraft.world.item.Item;
+import net.minecraft.world.level.storage.LevelResource;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * MobDropCache - Persists the entity -> drops index to the world folder
+ *
+ * The file is keyed by a SHA-256 hash of the selected packs and the raw entity loot table and
+ * item tag files they provide. When the hash matches on the next start the index is read back
+ * directly instead of re-scanning every loot table.
+ *
+ * Layout (gzip): magic, version, hash, entity count, then per entity:
+ * entity id, item count, item ids
+ */
+class MobDropCache {
+
+    private static final int MAGIC = 0x48424D44;     //"HBMD"
+    private static final int VERSION = 1;
+    private static final String FILE_NAME = Constants.MOD_ID + "_mob_drops.bin";
+
+    static Path getPath(MinecraftServer server) {
+        return server.getWorldPath(LevelResource.ROOT).resolve("data").resolve(FILE_NAME);
+    }
+
+    /**
+     * SHA-256 of the game version, the selected packs with their descriptions and the raw bytes of every entity loot table
+     * and item tag the packs provide, truncated to 64 bits. Reads the resources instead of walking
+     * the parsed tables, so a cache hit costs file reads rather than a rescan, and a changed file
+     * inside a pack whose id stays the same (a mod update) still invalidates the cache.
+     */
+    static long computeHash(MinecraftServer server)
+    {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);     //required of every JVM
+        }
+
+        update(digest, SharedConstants.getCurrentVersion().getName());
+        List<Pack> packs = new ArrayList<>(server.getPackRepository().getSelectedPacks());
+        packs.sort(Comparator.comparing(Pack::getId));
+        for (Pack pack : packs) {
+            update(digest, pack.getId());
+            update(digest, pack.getDescription().getString());
+        }
+
+        ResourceManager resources = server.getResourceManager();
+        hashResources(digest, resources, "loot_tables/entities");
+        hashResources(digest, resources, "tags/items");
+        return ByteBuffer.wrap(digest.digest()).getLong();
+    }
+
+    private static void hashResources(MessageDigest digest, ResourceManager resources, String path)
+    {
+        Map<ResourceLocation, Resource> found = new TreeMap<>(resources.listResources(path, loc -> loc.getPath().endsWith(".json")));
+        byte[] buffer = new byte[8192];
+        for (Map.Entry<ResourceLocation, Resource> entry : found.entrySet())
+        {
+            update(digest, entry.getKey().toString());
+            update(digest, entry.getValue().sourcePackId());
+            try (InputStream in = entry.getValue().open()) {
+                int read;
+                while ((read = in.read(buffer)) > 0) {
+                    digest.update(buffer, 0, read);
+                }
+            } catch (IOException e) {
+                update(digest, "unreadable");     //never matches a readable file's bytes
+            }
+        }
+    }
+
+    private static void update(MessageDigest digest, String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        digest.update(ByteBuffer.allocate(4).putInt(bytes.length).array());
+        digest.update(bytes);
+    }
+
+    /**
+     * Reads the cached index into mobDrops if the file exists and its hash matches
+     * @return true if the index was loaded
+     */
+    static boolean load(Path file, long hash, Map<EntityType<?>, Set<Item>> mobDrops)
+    {
+        if (!Files.exists(file)) return false;
+
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new GZIPInputStream(Files.newInputStream(file)))))
+        {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) return false;
+            if (in.readLong() != hash) return false;
+
+            Map<EntityType<?>, Set<Item>> loaded = new HashMap<>();
+            int entityCount = in.readInt();
+            for (int i = 0; i < entityCount; i++)
+            {
+                ResourceLocation entityLoc = new ResourceLocation(in.readUTF());
+                int itemCount = in.readInt();
+                Set<Item> drops = ConcurrentHashMap.newKeySet(itemCount);
+                for (int j = 0; j < itemCount; j++) {
+                    BuiltInRegistries.ITEM.getOptional(new ResourceLocation(in.readUTF())).ifPresent(drops::add);
+                }
+                BuiltInRegistries.ENTITY_TYPE.getOptional(entityLoc).ifPresent(type -> loaded.put(type, drops));
+            }
+
+            mobDrops.putAll(loaded);
+            return true;
+        } catch (Exception e) {
+            LoggerProject.logWarning("001011", "Failed to read mob drop cache " + file + ": " + e.getMessage());
+            return false;
+        }
+    }
+
+    static void save(Path file, long hash, Map<EntityType<?>, Set<Item>> mobDrops)
+    {
+        try {
+            Files.createDirectories(file.getParent());
+            Path tmp = file.resolveSibling(FILE_NAME + ".tmp");
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new GZIPOutputStream(Files.newOutputStream(tmp)))))
+            {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.writeLong(hash);
+                out.writeInt(mobDrops.size());
+                for (Map.Entry<EntityType<?>, Set<Item>> entry : mobDrops.entrySet())
+                {
+                    out.writeUTF(EntityType.getKey(entry.getKey()).toString());
+                    out.writeInt(entry.getValue().size());
+                    for (Item item : entry.getValue()) {
+                        out.writeUTF(BuiltInRegistries.ITEM.getKey(item).toString());
+                    }
+                }
+            }
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            LoggerProject.logWarning("001012", "Failed to write mob drop cache " + file + ": " + e.getMessage());
+        }
+    }
+}
@@ -4,8 +4,10 @@ import com.holybuckets.foundation.HBUtil;
 import com.holybuckets.foundation.event.EventRegistrar;
 import com.holybuckets.traveler.LoggerProject;
 import com.holybuckets.traveler.TravelerRewardsMain;
+import com.holybuckets.traveler.mixin.CompositeEntryBaseAccessor;
 import com.holybuckets.traveler.mixin.LootItemAccessor;
 import com.holybuckets.traveler.mixin.LootPoolAccessor;
+import com.holybuckets.traveler.mixin.TagEntryAccessor;
 import net.blay09.mods.balm.api.event.EventPriority;
 import net.blay09.mods.balm.api.event.server.ServerStartingEvent;
 import net.blay09.mods.balm.api.event.server.ServerStoppedEvent;
@@ -13,17 +15,23 @@ import net.minecraft.core.Holder;
 import net.minecraft.core.Registry;
 import net.minecraft.core.registries.BuiltInRegistries;
 import net.minecraft.resources.ResourceLocation;
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.tags.TagKey;
 import net.minecraft.world.entity.Entity;
 import net.minecraft.world.entity.EntityType;
 import net.minecraft.world.item.Item;
 import net.minecraft.world.level.block.Block;
 import net.minecraft.world.level.storage.loot.LootPool;
+import net.minecraft.world.level.storage.loot.entries.CompositeEntryBase;
 import net.minecraft.world.level.storage.loot.entries.LootItem;
 import net.minecraft.world.level.storage.loot.entries.LootPoolEntryContainer;
+import net.minecraft.world.level.storage.loot.entries.TagEntry;
 import net.minecraft.world.level.storage.loot.functions.LootItemFunction;
 import org.apache.commons.lang3.tuple.Pair;
 
+import java.nio.file.Path;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class ModConfig {
 
@@ -35,8 +43,10 @@ public class ModConfig {
     public static Set<Item> validGoldRepairItems = new HashSet<>();
     public static Set<Item> validNetheriteRepairItems = new HashSet<>();
 
-    private static final Map<EntityType<?>, Set<Item>> mobDrops = new HashMap<>();
-    private static final Map<ResourceLocation, List<LootPool>> mobLootTables = new HashMap<>();
+    private static final Map<EntityType<?>, Set<Item>> mobDrops = new ConcurrentHashMap<>();
+    private static final Map<ResourceLocation, List<LootPool>> mobLootTables = new ConcurrentHashMap<>();  //filled from loot reload worker threads
+    private static final Map<Item, BitSet> wardIndex = new IdentityHashMap<>();   //item -> entity type registry ids that drop it
+    private static final BitSet NO_WARDED_ENTITIES = new BitSet(0);
 
     public static final int[] LASTING_TICKS = new int[] {
         3000,
@@ -124,22 +134,72 @@ public class ModConfig {
             }
         }
 
-        //Init Mob Drops by scanning Entity Type and Loot Tables Registries
+        applyLogRules(CONFIG.logging.logRules);
+
+        //Init Mob Drops from the world's cache if the datapacks and loot tables are unchanged
+        MinecraftServer server = event.getServer();
+        Path cacheFile = MobDropCache.getPath(server);
+        long cacheHash = MobDropCache.computeHash(server);
+        mobDrops.clear();
+        if( MobDropCache.load(cacheFile, cacheHash, mobDrops) ) {
+            buildWardIndex();
+            return;
+        }
+
+        //Otherwise scan Entity Type and Loot Tables Registries, tables are scanned
+        // in parallel on the common fork join pool and merged into concurrent sets
         Registry<EntityType<?>> entities = BuiltInRegistries.ENTITY_TYPE;
-        for( ResourceLocation entityLoc : mobLootTables.keySet() )
+        mobLootTables.keySet().parallelStream().forEach( entityLoc ->
         {
-            EntityType<?> entityType = entities.get(entityLoc);
-            if( entityType == null ) continue;
-            Set<Item> drops = mobDrops.getOrDefault( entityType, new HashSet<>() );
-            drops.addAll( loadEntityLootTables(entityLoc) );
-            mobDrops.put( entityType, drops );
+            EntityType<?> entityType = entities.getOptional(entityLoc).orElse(null);
+            if( entityType == null ) return;
+            Set<Item> drops = loadEntityLootTables(entityLoc);
+            if( drops.isEmpty() ) return;
+            mobDrops.computeIfAbsent( entityType, t -> ConcurrentHashMap.newKeySet() ).addAll( drops );
+        });
+        MobDropCache.save(cacheFile, cacheHash, mobDrops);
+        buildWardIndex();
+
+    }
+
+    /**
+     * Inverts mobDrops into item -> bitset of entity type registry ids,
+     * so a ward check is one map lookup and one bit test
+     */
+    private static void buildWardIndex()
+    {
+        wardIndex.clear();
+        Registry<EntityType<?>> entities = BuiltInRegistries.ENTITY_TYPE;
+        for (Map.Entry<EntityType<?>, Set<Item>> entry : mobDrops.entrySet()) {
+            int entityId = entities.getId(entry.getKey());
+            if (entityId < 0) continue;
+            for (Item item : entry.getValue()) {
+                wardIndex.computeIfAbsent(item, i -> new BitSet()).set(entityId);
+            }
         }
+    }
 
+    /**
+     * Replaces the active log rules with the configured ones, entries are "logId sampleRate perSecond burst"
+     */
+    private static void applyLogRules(Set<String> rules)
+    {
+        LoggerProject.clearLogRules();
+        for( String rule : rules ) {
+            String[] parts = rule.trim().split("\\s+");
+            try {
+                if( parts.length != 4 ) throw new IllegalArgumentException("expected 4 values");
+                LoggerProject.setLogRule(parts[0], Double.parseDouble(parts[1]), Double.parseDouble(parts[2]), Integer.parseInt(parts[3]));
+            } catch (IllegalArgumentException e) {
+                LoggerProject.logWarning("001013", "Invalid log rule \"" + rule + "\": " + e.getMessage());
+            }
+        }
     }
 
     private static void onServerStopped(ServerStoppedEvent event) {
         mobDrops.clear();
         mobLootTables.clear();
+        wardIndex.clear();
     }
 
     public static boolean isValidFabricatedBlock(Block block) {
@@ -171,17 +231,26 @@ public class ModConfig {
     }
 
     public static boolean isMobWardedByItem(Entity mob, Item item) {
-        Set<Item> drops = mobDrops.get(mob.getType());
-        if (drops == null || drops.isEmpty()) return false;
-        return drops.contains(item);
+        return isMobWardedBy(mob, getEntityIdsWardedBy(item));
+    }
+
+    public static boolean isMobWardedBy(Entity mob, BitSet wardedEntityIds) {
+        return wardedEntityIds.get(BuiltInRegistries.ENTITY_TYPE.getId(mob.getType()));
+    }
+
+    /**
+     * Returns the entity type registry ids warded by item, do not modify
+     */
+    public static BitSet getEntityIdsWardedBy(Item item) {
+        return wardIndex.getOrDefault(item, NO_WARDED_ENTITIES);
     }
 
     public static Set<EntityType<?>> getEntityTypesWardedBy(Item item) {
+        BitSet ids = getEntityIdsWardedBy(item);
         Set<EntityType<?>> result = new HashSet<>();
-        for (Map.Entry<EntityType<?>, Set<Item>> entry : mobDrops.entrySet()) {
-            if (entry.getValue().contains(item)) {
-                result.add(entry.getKey());
-            }
+        for (int id = ids.nextSetBit(0); id >= 0; id = ids.nextSetBit(id + 1)) {
+            EntityType<?> type = BuiltInRegistries.ENTITY_TYPE.byId(id);
+            if (type != null) result.add(type);
         }
         return result;
     }
@@ -210,10 +279,7 @@ public class ModConfig {
                 if (entries == null || entries.length<1) continue;
 
                 for (LootPoolEntryContainer entry : entries) {
-                    if (entry instanceof LootItem lootItem) {
-                        Item item = ((LootItemAccessor) lootItem).getItem();
-                        if (item != null) lootItems.add(item);
-                    }
+                    collectLootItems(entry, lootItems);
                 }
             }
         } catch (Exception e) {
@@ -224,6 +290,31 @@ public class ModConfig {
       return lootItems;
     }
 
+    /**
+     * Adds every item an entry can drop, descending into alternatives, groups and sequences
+     * and expanding item tag entries
+     */
+    private static void collectLootItems(LootPoolEntryContainer entry, Set<Item> lootItems)
+    {
+        if (entry instanceof LootItem lootItem) {
+            Item item = ((LootItemAccessor) lootItem).getItem();
+            if (item != null) lootItems.add(item);
+        }
+        else if (entry instanceof TagEntry tagEntry) {
+            TagKey<Item> tag = ((TagEntryAccessor) tagEntry).getTag();
+            for (Holder<Item> holder : BuiltInRegistries.ITEM.getTagOrEmpty(tag)) {
+                lootItems.add(holder.value());
+            }
+        }
+        else if (entry instanceof CompositeEntryBase composite) {
+            LootPoolEntryContainer[] children = ((CompositeEntryBaseAccessor) composite).getChildren();
+            if (children == null) return;
+            for (LootPoolEntryContainer child : children) {
+                collectLootItems(child, lootItems);
+            }
+        }
+    }
+
     private static ResourceLocation extractEntityId(ResourceLocation lootTableLoc) {
         String path = lootTableLoc.getPath();
         if (!path.startsWith("entities/")) return null;
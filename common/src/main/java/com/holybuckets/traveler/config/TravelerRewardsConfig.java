@@ -125,7 +125,18 @@ public class TravelerRewardsConfig {
         );
     }
 
+    public static class LoggingConfig {
+        @NestedType(String.class)
+        @Comment("Per log id sampling and rate limits, each entry is \"logId sampleRate perSecond burst\". sampleRate is the fraction of messages kept (1 keeps all), perSecond the sustained messages per second (0 for no limit) and burst the messages allowed at once. Suppressed messages are summarized once a minute")
+        public Set<String> logRules = new HashSet<>(Set.of(
+            "020003 1.0 2 20",      //new Lasting item
+            "020004 1.0 5 20",      //Lasting item expired
+            "022001 1.0 1 5"        //traveler tick starved
+        ));
+    }
+
     public AnvilRewardsConfig anvilRewards = new AnvilRewardsConfig();
     public SimpleRewardsConfig simpleRewards = new SimpleRewardsConfig();
+    public LoggingConfig logging = new LoggingConfig();
 
 }
@@ -16,6 +16,7 @@ import net.minecraft.world.item.enchantment.EnchantmentHelper;
 import net.minecraft.world.item.enchantment.Enchantments;
 
 import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.Map;
 import java.util.Set;
 
@@ -56,32 +57,42 @@ public class AnvilRecipeManager {
     static AnvilUpdateEvent.MaterialDriven goldBloomRepair = new AnvilUpdateEvent.MaterialDriven(ModConfig.validGoldRepairItems, ModItems.goldBloom);
     static AnvilUpdateEvent.MaterialDriven netheriteBloomRepair = new AnvilUpdateEvent.MaterialDriven(ModConfig.validNetheriteRepairItems, ModItems.netheriteBloom);
 
+    // Right hand item -> the single recipe it drives
+    private static final Map<Item, AnvilRecipe> RECIPES = new IdentityHashMap<>();
+
+    @FunctionalInterface
+    private interface AnvilRecipe {
+        void apply(AnvilUpdateEvent event, ItemStack leftItem, ItemStack rightItem);
+    }
+
     /**
-     * Initialize anvil recipes and register event handlers
+     * Initialize anvil recipes and register event handlers. The foundation only runs a handler
+     * when its own driver matches, so every driver registers the same dispatching handler.
+     * Drivers sharing a right item may both match, the recipe then runs twice with the same result.
      */
     public static void init(EventRegistrar registrar) {
         // Whetstone recipes
-        registrar.registerOnAnvilUpdate(whetstoneEnchantDriven, AnvilRecipeManager::onWhetstoneEnchantUpgrade);
-        registrar.registerOnAnvilUpdate(whetstoneWeaponDriven, AnvilRecipeManager::onWhetstoneWeaponUpgrade);
-        registrar.registerOnAnvilUpdate(netheriteWhetstoneEnchantDriven, AnvilRecipeManager::onWhetstoneEnchantUpgrade);
-        registrar.registerOnAnvilUpdate(netheriteWhetstoneWeaponDriven, AnvilRecipeManager::onWhetstoneWeaponUpgrade);
+        registrar.registerOnAnvilUpdate(whetstoneEnchantDriven, AnvilRecipeManager::onAnvilUpdate);
+        registrar.registerOnAnvilUpdate(whetstoneWeaponDriven, AnvilRecipeManager::onAnvilUpdate);
+        registrar.registerOnAnvilUpdate(netheriteWhetstoneEnchantDriven, AnvilRecipeManager::onAnvilUpdate);
+        registrar.registerOnAnvilUpdate(netheriteWhetstoneWeaponDriven, AnvilRecipeManager::onAnvilUpdate);
 
 
         // Bracing recipes
-        registrar.registerOnAnvilUpdate(bracingEnchantDriven, AnvilRecipeManager::onBracingEnchantUpgrade);
-        registrar.registerOnAnvilUpdate(bracingToolDriven, AnvilRecipeManager::onBracingToolUpgrade);
-        registrar.registerOnAnvilUpdate(netheriteBracingEnchantDriven, AnvilRecipeManager::onBracingEnchantUpgrade);
-        registrar.registerOnAnvilUpdate(netheriteBracingToolDriven, AnvilRecipeManager::onBracingToolUpgrade);
+        registrar.registerOnAnvilUpdate(bracingEnchantDriven, AnvilRecipeManager::onAnvilUpdate);
+        registrar.registerOnAnvilUpdate(bracingToolDriven, AnvilRecipeManager::onAnvilUpdate);
+        registrar.registerOnAnvilUpdate(netheriteBracingEnchantDriven, AnvilRecipeManager::onAnvilUpdate);
+        registrar.registerOnAnvilUpdate(netheriteBracingToolDriven, AnvilRecipeManager::onAnvilUpdate);
 
         // Hourglass recipes
-        registrar.registerOnAnvilUpdate(hourglassEnchantDriven, AnvilRecipeManager::onHourglassEnchantUpgrade);
-        registrar.registerOnAnvilUpdate(diamondHourglassEnchantDriven, AnvilRecipeManager::onHourglassEnchantUpgrade);
+        registrar.registerOnAnvilUpdate(hourglassEnchantDriven, AnvilRecipeManager::onAnvilUpdate);
+        registrar.registerOnAnvilUpdate(diamondHourglassEnchantDriven, AnvilRecipeManager::onAnvilUpdate);
 
         // Repair recipes
-        registrar.registerOnAnvilUpdate(diamondShardRepair, AnvilRecipeManager::onDiamondShardRepair);
-        registrar.registerOnAnvilUpdate(ironBloomRepair, AnvilRecipeManager::onIronBloomRepair);
-        registrar.registerOnAnvilUpdate(goldBloomRepair, AnvilRecipeManager::onGoldBloomRepair);
-        registrar.registerOnAnvilUpdate(netheriteBloomRepair, AnvilRecipeManager::onNetheriteBloomRepair);
+        registrar.registerOnAnvilUpdate(diamondShardRepair, AnvilRecipeManager::onAnvilUpdate);
+        registrar.registerOnAnvilUpdate(ironBloomRepair, AnvilRecipeManager::onAnvilUpdate);
+        registrar.registerOnAnvilUpdate(goldBloomRepair, AnvilRecipeManager::onAnvilUpdate);
+        registrar.registerOnAnvilUpdate(netheriteBloomRepair, AnvilRecipeManager::onAnvilUpdate);
 
         registrar.registerOnBeforeServerStarted(AnvilRecipeManager::completeAnvilRegistration, EventPriority.Lowest);
     }
@@ -125,86 +136,81 @@ public class AnvilRecipeManager {
         goldBloomRepair.setRightItem(ModItems.goldBloom.getDefaultInstance());
         netheriteBloomRepair.setLeftMaterials(ModConfig.validNetheriteRepairItems);
         netheriteBloomRepair.setRightItem(ModItems.netheriteBloom.getDefaultInstance());
+
+        // Dispatch table
+        RECIPES.clear();
+        RECIPES.put(ModItems.whetstone, AnvilRecipeManager::onWhetstoneUpgrade);
+        RECIPES.put(ModItems.netheriteWhetstone, AnvilRecipeManager::onWhetstoneUpgrade);
+        RECIPES.put(ModItems.bracing, AnvilRecipeManager::onBracingUpgrade);
+        RECIPES.put(ModItems.netheriteBracing, AnvilRecipeManager::onBracingUpgrade);
+        RECIPES.put(ModItems.hourglass, AnvilRecipeManager::onHourglassEnchantUpgrade);
+        RECIPES.put(ModItems.diamondHourglass, AnvilRecipeManager::onHourglassEnchantUpgrade);
+        RECIPES.put(ModItems.diamondShard, (e, l, r) -> onMaterialRepair(e, l, ModConfig.validDiamondRepairItems));
+        RECIPES.put(ModItems.ironBloom, (e, l, r) -> onMaterialRepair(e, l, ModConfig.validIronRepairItems));
+        RECIPES.put(ModItems.goldBloom, (e, l, r) -> onMaterialRepair(e, l, ModConfig.validGoldRepairItems));
+        RECIPES.put(ModItems.netheriteBloom, (e, l, r) -> onMaterialRepair(e, l, ModConfig.validNetheriteRepairItems));
     }
 
     /**
-     * Whetstone adds +1 Sharpness to items that already have Sharpness
+     * Single anvil handler, sends the event to the recipe keyed by the right hand item
      */
-    private static void onWhetstoneEnchantUpgrade(AnvilUpdateEvent event)
+    private static void onAnvilUpdate(AnvilUpdateEvent event)
     {
         ItemStack leftItem = event.getLeftItem();
         ItemStack rightItem = event.getRightItem();
-
-        // Check if recipe matches
-        if (!(rightItem.getItem() instanceof AnvilEnchantmentItem anvilEnchantmentItem))
-            return;
-
-        // Check if item has Sharpness
-        int currentSharpness = EnchantmentHelper.getItemEnchantmentLevel(Enchantments.SHARPNESS, leftItem);
-        if (currentSharpness <= 0) return; // let the weapon recipe handle it
-        if (currentSharpness >= 10) return; // Already at max level
-        if (currentSharpness >= 5 && anvilEnchantmentItem.getTier() < 2) return;
-
-        int sharpMax = 5 * anvilEnchantmentItem.getTier();
-        int newSharpness = Math.min(currentSharpness + anvilEnchantmentItem.getTier(), sharpMax);
-        ItemStack result = leftItem.copy();
-
-        Map<Enchantment, Integer> enchantments = EnchantmentHelper.getEnchantments(result);
-        enchantments.put(Enchantments.SHARPNESS, newSharpness);
-        EnchantmentHelper.setEnchantments(enchantments, result);
-
-        event.setResultItem(result);
-        event.setCost(1);
+        AnvilRecipe recipe = RECIPES.get(rightItem.getItem());
+        if (recipe == null) return;
+        recipe.apply(event, leftItem, rightItem);
     }
 
     /**
-     * Whetstone adds Sharpness I to any weapon (sword or axe)
+     * Whetstone adds its tier in Sharpness to items that already have Sharpness,
+     * or Sharpness I per tier to any weapon without it
      */
-    private static void onWhetstoneWeaponUpgrade(AnvilUpdateEvent event) {
-        ItemStack leftItem = event.getLeftItem();
-        ItemStack rightItem = event.getRightItem();
-
-        // Check if recipe matches
-        if (!WEAPONS.contains(leftItem.getItem()) || !(rightItem.getItem() instanceof AnvilEnchantmentItem aei))
+    private static void onWhetstoneUpgrade(AnvilUpdateEvent event, ItemStack leftItem, ItemStack rightItem)
+    {
+        if (!(rightItem.getItem() instanceof AnvilEnchantmentItem anvilEnchantmentItem))
             return;
 
-        // Check if already has Sharpness (let the enchant-driven recipe handle it)
         int currentSharpness = EnchantmentHelper.getItemEnchantmentLevel(Enchantments.SHARPNESS, leftItem);
-        ItemStack result = leftItem.copy();
-
-        Map<Enchantment, Integer> enchantments = EnchantmentHelper.getEnchantments(result);
-        enchantments.put(Enchantments.SHARPNESS, aei.getTier() + currentSharpness);
-        EnchantmentHelper.setEnchantments(enchantments, result);
-
-        // Set result
-        event.setResultItem(result);
-        event.setCost(1); // Cheap for adding first level
+        if (currentSharpness > 0) {
+            upgradeEnchantment(event, leftItem, Enchantments.SHARPNESS, currentSharpness, anvilEnchantmentItem.getTier());
+        } else if (WEAPONS.contains(leftItem.getItem())) {
+            addEnchantment(event, leftItem, Enchantments.SHARPNESS, anvilEnchantmentItem.getTier());
+        }
     }
 
     /**
-     * Bracing adds +1 Unbreaking to items that already have Unbreaking
+     * Bracing adds its tier in Unbreaking to items that already have Unbreaking,
+     * or Unbreaking I per tier to any valid tool or armor without it
      */
-    private static void onBracingEnchantUpgrade(AnvilUpdateEvent event)
+    private static void onBracingUpgrade(AnvilUpdateEvent event, ItemStack leftItem, ItemStack rightItem)
     {
-        ItemStack leftItem = event.getLeftItem();
-        ItemStack rightItem = event.getRightItem();
-
-        // Check if recipe matches
         if (!(rightItem.getItem() instanceof AnvilEnchantmentItem anvilEnchantmentItem))
             return;
 
-        // Check if item has Unbreaking
         int currentUnbreaking = EnchantmentHelper.getItemEnchantmentLevel(Enchantments.UNBREAKING, leftItem);
-        if (currentUnbreaking <= 0) return; // let the tool recipe handle it
-        if (currentUnbreaking >= 10) return; // Already at max level
-        if (currentUnbreaking >= 5 && anvilEnchantmentItem.getTier() < 2) return;
+        if (currentUnbreaking > 0) {
+            upgradeEnchantment(event, leftItem, Enchantments.UNBREAKING, currentUnbreaking, anvilEnchantmentItem.getTier());
+        } else if (ModConfig.validBracingItems.contains(leftItem.getItem())) {
+            addEnchantment(event, leftItem, Enchantments.UNBREAKING, anvilEnchantmentItem.getTier());
+        }
+    }
 
-        int unbreakingMax = 5 * anvilEnchantmentItem.getTier();
-        int newUnbreaking = Math.min(currentUnbreaking + anvilEnchantmentItem.getTier(), unbreakingMax);
+    /**
+     * Raises an existing enchantment by tier, capped at 5 per tier and 10 overall
+     */
+    private static void upgradeEnchantment(AnvilUpdateEvent event, ItemStack leftItem, Enchantment enchantment, int currentLevel, int tier)
+    {
+        if (currentLevel >= 10) return; // Already at max level
+        if (currentLevel >= 5 && tier < 2) return;
+
+        int levelMax = 5 * tier;
+        int newLevel = Math.min(currentLevel + tier, levelMax);
         ItemStack result = leftItem.copy();
 
         Map<Enchantment, Integer> enchantments = EnchantmentHelper.getEnchantments(result);
-        enchantments.put(Enchantments.UNBREAKING, newUnbreaking);
+        enchantments.put(enchantment, newLevel);
         EnchantmentHelper.setEnchantments(enchantments, result);
 
         event.setResultItem(result);
@@ -212,39 +218,26 @@ public class AnvilRecipeManager {
     }
 
     /**
-     * Bracing adds Unbreaking I to any tool or armor
+     * Adds a new enchantment at the given level
      */
-    private static void onBracingToolUpgrade(AnvilUpdateEvent event) {
-        ItemStack leftItem = event.getLeftItem();
-        ItemStack rightItem = event.getRightItem();
-
-        // Check if recipe matches
-
-        if (!ModConfig.validBracingItems.contains(leftItem.getItem()) || !(rightItem.getItem() instanceof AnvilEnchantmentItem aei))
-            return;
-
-        // Check if already has Unbreaking (let the enchant-driven recipe handle it)
-        int currentUnbreaking = EnchantmentHelper.getItemEnchantmentLevel(Enchantments.UNBREAKING, leftItem);
+    private static void addEnchantment(AnvilUpdateEvent event, ItemStack leftItem, Enchantment enchantment, int level)
+    {
         ItemStack result = leftItem.copy();
 
         Map<Enchantment, Integer> enchantments = EnchantmentHelper.getEnchantments(result);
-        enchantments.put(Enchantments.UNBREAKING, aei.getTier() + currentUnbreaking);
+        enchantments.put(enchantment, level);
         EnchantmentHelper.setEnchantments(enchantments, result);
 
-        // Set result
         event.setResultItem(result);
-        event.setCost(1);
+        event.setCost(1); // Cheap for adding first level
     }
 
 
     /**
      * Hourglass adds +1 Lasting to items that already have Lasting
      */
-    private static void onHourglassEnchantUpgrade(AnvilUpdateEvent event)
+    private static void onHourglassEnchantUpgrade(AnvilUpdateEvent event, ItemStack leftItem, ItemStack rightItem)
     {
-        ItemStack leftItem = event.getLeftItem();
-        ItemStack rightItem = event.getRightItem();
-
         // Check if recipe matches
         if (!(rightItem.getItem() instanceof AnvilEnchantmentItem anvilEnchantmentItem))
             return;
@@ -269,98 +262,20 @@ public class AnvilRecipeManager {
 
 
     /**
-     * Diamond Shard repairs diamond tools (same amount as using a diamond)
+     * Shards and blooms repair matching tools (same amount as using the base material, 25% durability)
      */
-    private static void onDiamondShardRepair(AnvilUpdateEvent event) {
-        ItemStack leftItem = event.getLeftItem();
-        ItemStack rightItem = event.getRightItem();
-
-        // Check if recipe matches
-        if (!ModConfig.validDiamondRepairItems.contains(leftItem.getItem()) || rightItem.getItem() != ModItems.diamondShard) {
-            return;
-        }
-        if (!leftItem.isDamaged()) return; // Not damaged, no need to repair
-
-        int repairAmount = leftItem.getMaxDamage() / 4;
-        int currentDamage = leftItem.getDamageValue();
-        int newDamage = Math.max(0, currentDamage - repairAmount);
-
-        ItemStack result = leftItem.copy();
-        result.setDamageValue(newDamage);
-        event.setResultItem(result);
-        event.setCost(1); // Moderate cost for repair
-    }
-
-    /**
-     * Iron Bloom repairs iron tools (same amount as using an iron ingot)
-     */
-    private static void onIronBloomRepair(AnvilUpdateEvent event)
+    private static void onMaterialRepair(AnvilUpdateEvent event, ItemStack leftItem, Set<Item> validItems)
     {
-        ItemStack leftItem = event.getLeftItem();
-        ItemStack rightItem = event.getRightItem();
-
-        // Check if recipe matches
-        if (!ModConfig.validDiamondRepairItems.contains(leftItem.getItem()) || rightItem.getItem() != ModItems.ironBloom)
-            return;
-
-        if (!leftItem.isDamaged()) return;
-
-        int repairAmount = leftItem.getMaxDamage() / 4;
-        int currentDamage = leftItem.getDamageValue();
-        int newDamage = Math.max(0, currentDamage - repairAmount);
-
-        ItemStack result = leftItem.copy();
-        result.setDamageValue(newDamage);
-
-        event.setResultItem(result);
-        event.setCost(1); // Moderate cost for repair
-    }
-
-    /**
-     * Gold Bloom repairs gold tools (same amount as using a gold ingot)
-     */
-    private static void onGoldBloomRepair(AnvilUpdateEvent event) {
-        ItemStack leftItem = event.getLeftItem();
-        ItemStack rightItem = event.getRightItem();
-
-        if (!ModConfig.validGoldRepairItems.contains(leftItem.getItem()) || rightItem.getItem() != ModItems.goldBloom)
-            return;
-
-        if (!leftItem.isDamaged()) return;
-
-        int repairAmount = leftItem.getMaxDamage() / 4;
-        int currentDamage = leftItem.getDamageValue();
-        int newDamage = Math.max(0, currentDamage - repairAmount);
-
-        ItemStack result = leftItem.copy();
-        result.setDamageValue(newDamage);
-        event.setResultItem(result);
-        event.setCost(1); // Moderate cost for repair
-    }
-
-    /**
-     * Netherite Bloom repairs netherite tools (same amount as using a netherite ingot)
-     */
-    private static void onNetheriteBloomRepair(AnvilUpdateEvent event) {
-        ItemStack leftItem = event.getLeftItem();
-        ItemStack rightItem = event.getRightItem();
-
         // Check if recipe matches
-        if (!ModConfig.validNetheriteRepairItems.contains(leftItem.getItem()) || rightItem.getItem() != ModItems.netheriteBloom) {
-            return;
-        }
-        if (!leftItem.isDamaged()) return;
+        if (!validItems.contains(leftItem.getItem())) return;
+        if (!leftItem.isDamaged()) return; // Not damaged, no need to repair
 
-        // Calculate repair amount (1 netherite ingot = 25% of max durability)
         int repairAmount = leftItem.getMaxDamage() / 4;
         int currentDamage = leftItem.getDamageValue();
         int newDamage = Math.max(0, currentDamage - repairAmount);
 
-        // Create repaired item
         ItemStack result = leftItem.copy();
         result.setDamageValue(newDamage);
-
-        // Set result
         event.setResultItem(result);
         event.setCost(1); // Moderate cost for repair
     }
@@ -0,0 +1,18 @@
+package com.holybuckets.traveler.core;
+
+/**
+ * Implemented on the player Inventory via InventoryMixin.
+ * Accumulates a bitmask of slot indices modified since the last poll
+ * so ManagedTraveler only reclassifies slots that actually changed.
+ */
+public interface InventoryChangeTracker {
+
+    long ALL_SLOTS = -1L;
+
+    /**
+     * Returns slots changed since the last call and resets the mask
+     */
+    long hbs_traveler$pollChangedSlots();
+
+    void hbs_traveler$markSlotChanged(int slot);
+}
@@ -1,22 +1,20 @@
 package com.holybuckets.traveler.core;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import com.holybuckets.foundation.GeneralConfig;
-import com.holybuckets.foundation.HBUtil;
 import com.holybuckets.foundation.networking.SimpleStringMessage;
-import com.holybuckets.foundation.structure.StructureAPI;
 import com.holybuckets.traveler.LoggerProject;
-import com.holybuckets.traveler.TravelerRewardsMain;
 import com.holybuckets.traveler.config.ModConfig;
 import com.holybuckets.traveler.enchantment.ModEnchantments;
-import io.netty.util.collection.IntObjectMap;
 import net.minecraft.core.BlockPos;
+import net.minecraft.core.SectionPos;
 import net.minecraft.nbt.CompoundTag;
 import net.minecraft.network.chat.Component;
 import net.minecraft.server.level.ServerLevel;
 import net.minecraft.server.level.ServerPlayer;
 import net.minecraft.sounds.SoundEvents;
 import net.minecraft.sounds.SoundSource;
-import net.minecraft.world.entity.Entity;
 import net.minecraft.world.entity.Mob;
 import net.minecraft.world.entity.ai.attributes.AttributeInstance;
 import net.minecraft.world.entity.ai.attributes.AttributeModifier;
@@ -30,9 +28,8 @@ import net.minecraft.world.item.alchemy.PotionBrewing;
 import net.minecraft.world.item.alchemy.PotionUtils;
 import net.minecraft.world.item.alchemy.Potions;
 import net.minecraft.world.item.enchantment.EnchantmentHelper;
-import net.minecraft.world.level.Level;
-import net.minecraft.world.level.chunk.ChunkAccess;
-import net.minecraft.world.level.chunk.LevelChunkSection;
+import net.minecraft.world.level.chunk.LevelChunk;
+import net.minecraft.world.level.levelgen.Heightmap;
 import net.minecraft.world.phys.Vec3;
 
 import javax.annotation.Nullable;
@@ -50,14 +47,24 @@ public class ItemImplementation {
 
     private static ItemImplementation instance;
     private GeneralConfig GENERAL_CONFIG;
+    private final LastingExpirationQueue lastingQueue;
+    private final Cache<CompoundTag, MobWardFilter> mobWardFilters;
+    private final MobWardBroadphase mobWardBroadphase;
 
 
     private static final UUID PURE_HEART_MODIFIER_UUID = UUID.fromString("a3d89f7e-5c8d-4f3a-9b2e-1d4c6e8f0a1b");
     private static final String PURE_HEART_MODIFIER_NAME = "Pure Heart";
     private static final double HEALTH_PER_HEART = 2.0;
+    private static final int MOB_WARD_FILTER_CACHE_SIZE = 1024;
 
     private ItemImplementation() {
         GENERAL_CONFIG = GeneralConfig.getInstance();
+        lastingQueue = new LastingExpirationQueue();
+        mobWardFilters = CacheBuilder.newBuilder()
+            .weakKeys()                 //identity keys, entries die with the ward's tag
+            .maximumSize(MOB_WARD_FILTER_CACHE_SIZE)
+            .build();
+        mobWardBroadphase = new MobWardBroadphase(this);
     }
 
     public static ItemImplementation getInstance() {
@@ -101,14 +108,16 @@ public class ItemImplementation {
         player.setHealth(player.getMaxHealth());
     }
 
-    boolean isInStructure(Player player)
+    public static final int escape_charm_STRUCTURE_RANGE = 64;
+    /**
+     * Uses the traveler's cached nearest structure, re-queried only if the player has moved
+     */
+    boolean isInStructure(ManagedTraveler traveler)
     {
-        StructureAPI api = TravelerRewardsMain.STRUCTURE_APIS.get(player.level());
-        BlockPos structurePos = api.nearestStructures(player.blockPosition(),1).get(0).getOrigin();
-        if(structurePos == null) return false;
-        if(BlockUtil.inRange(player.blockPosition(), structurePos, 64))
-            return true;
-        return false;
+        Player player = traveler.getPlayer();
+        StructureProximity proximity = traveler.getStructureProximity();
+        proximity.update(player);
+        return proximity.isWithin(player, escape_charm_STRUCTURE_RANGE);
     }
 
     public static final int escape_charm_MAX_Y_CAVE_ESCAPE = 16;
@@ -117,43 +126,19 @@ public class ItemImplementation {
     }
 
     /**
-     * Find the lowest level chunk section above the player which does not "haveOnlyAir()"
-     * @param level
-     * @param pos
-     * @return
-     */
-    /**
-     * Find the lowest level chunk section above the player which does not "haveOnlyAir()"
-     * @param level
-     * @param pos
-     * @return the lowest non-air-only section above pos, or null if none found
+     * Returns the loaded chunk holding the column, or null. Never loads or generates a chunk.
      */
-    private int getMaxYBelowSky(Level level, BlockPos pos)
-    {
-        ChunkAccess chunk = level.getChunk(pos);
-
-        LevelChunkSection lowestSkySection = null;
-        int sec = chunk.getSections().length;
-        do {
-            sec--;
-            LevelChunkSection section = chunk.getSections()[sec];
-            if (section != null && !section.hasOnlyAir()) {
-                lowestSkySection = section;
-            }
-        } while (sec > 0 && lowestSkySection == null);
-
-        int lowestY = 16;
-        do {
-            lowestY--;
-        } while (lowestY > 0 && lowestSkySection.getBlockState(8,lowestY,8).isAir());
-
-        return HBUtil.WorldPos.sectionIndexToY(sec, level.getMinBuildHeight()) + lowestY;
+    @Nullable
+    private static LevelChunk getLoadedChunk(ServerLevel level, int x, int z) {
+        return level.getChunkSource().getChunkNow(SectionPos.blockToSectionCoord(x), SectionPos.blockToSectionCoord(z));
     }
 
     private static final int[] ESCAPE_OFFSETS = {-48, -32, -16, 16, 32, 48};
     private static final int[] ESCAPE_PARTIAL_OFFSETS = {-16, -8, -4, -1, 1, 4, 8, 16};
     /**
-     * Finds the surface directly above the player's current position
+     * Finds the surface above the player's current position from the chunk heightmaps.
+     * The median surface height of the sampled columns picks the start column, then nearby
+     * columns are probed for one open to the sky. Only already loaded chunks are read.
      * @return BlockPos at surface level, or null if not found
      */
     @Nullable
@@ -161,61 +146,52 @@ public class ItemImplementation {
     {
         if (!(player instanceof ServerPlayer serverPlayer)) return null;
 
-        Level level = serverPlayer.level();
+        ServerLevel level = serverPlayer.serverLevel();
         BlockPos playerPos = player.blockPosition();
-        int x = playerPos.getX();
-        int z = playerPos.getZ();
-
-        // Get the top solid block at this X,Z coordinate
-        // This uses Minecraft's built-in heightmap which tracks the surface
-        int size = ESCAPE_OFFSETS.length*ESCAPE_OFFSETS.length;
-        LinkedList<BlockPos> potentialPositions = new LinkedList<>();
-        int middleYIdex = 0;
-        for (int dx : ESCAPE_OFFSETS)
+
+        //1. Sample surface height of each column, packed as (y << 32 | column index) for sorting
+        long[] samples = new long[ESCAPE_OFFSETS.length * ESCAPE_OFFSETS.length];
+        int count = 0;
+        for (int i = 0; i < ESCAPE_OFFSETS.length; i++)
         {
-            for (int dz : ESCAPE_OFFSETS)
+            for (int j = 0; j < ESCAPE_OFFSETS.length; j++)
             {
-                 x = playerPos.getX() + dx;
-                 z = playerPos.getZ() + dz;
-                 BlockPos pos = new BlockPos(x, playerPos.getY(), z);
-                 int newY = getMaxYBelowSky(level, pos);
-
-                 //add first if newY is less than middle y, add last
-                 if((potentialPositions.isEmpty())) {
-                     potentialPositions.addFirst(new BlockPos(x, newY, z));
-                 }
-                 else if(newY < potentialPositions.getFirst().getY()) {
-                     potentialPositions.addFirst(new BlockPos(x, newY, z));
-                 }
-                 else if(newY < potentialPositions.get(middleYIdex).getY()) {
-                     potentialPositions.add(middleYIdex, new BlockPos(x, newY, z));
-                 }
-                 else if(newY < potentialPositions.getLast().getY()) {
-                     potentialPositions.add(middleYIdex+1, new BlockPos(x, newY, z));
-                } else {
-                    potentialPositions.addLast(new BlockPos(x, newY, z));
-                }
-
-                middleYIdex = potentialPositions.size() / 2;
+                int x = playerPos.getX() + ESCAPE_OFFSETS[i];
+                int z = playerPos.getZ() + ESCAPE_OFFSETS[j];
+                LevelChunk chunk = getLoadedChunk(level, x, z);
+                if (chunk == null) continue;
 
+                int y = chunk.getHeight(Heightmap.Types.MOTION_BLOCKING_NO_LEAVES, x, z) + 1;
+                samples[count++] = ((long) y << 32) | (i * ESCAPE_OFFSETS.length + j);
             }
         }
+        if (count == 0) return null;
+
+        //2. Median column
+        Arrays.sort(samples, 0, count);
+        long median = samples[count / 2];
+        int index = (int) median;
+        BlockPos startPos = new BlockPos(
+            playerPos.getX() + ESCAPE_OFFSETS[index / ESCAPE_OFFSETS.length],
+            (int) (median >> 32),
+            playerPos.getZ() + ESCAPE_OFFSETS[index % ESCAPE_OFFSETS.length]
+        );
 
-
-
-        BlockPos startPos = potentialPositions.get(middleYIdex);
+        //3. Probe nearby columns for a landing spot open to the sky
         for (int dx : ESCAPE_PARTIAL_OFFSETS)
         {
             for (int dz : ESCAPE_PARTIAL_OFFSETS)
             {
-                x = startPos.getX() + dx;
-                z = startPos.getZ() + dz;
-                BlockPos candidate = startPos.offset(dx, 0, dz);
-
-                if (level.getBlockState(candidate).isAir() &&
-                    level.getBlockState(candidate.above()).isAir() &&
-                    hasLandingSpot(level, candidate)) {
-                    return candidate;
+                int x = startPos.getX() + dx;
+                int z = startPos.getZ() + dz;
+                LevelChunk chunk = getLoadedChunk(level, x, z);
+                if (chunk == null) continue;
+
+                int ground = chunk.getHeight(Heightmap.Types.MOTION_BLOCKING_NO_LEAVES, x, z);
+                int surface = chunk.getHeight(Heightmap.Types.WORLD_SURFACE, x, z);
+                //Grass and flowers above the ground are fine, leaves or overhangs are not
+                if (surface - ground <= 1 && ground > level.getMinBuildHeight()) {
+                    return new BlockPos(x, ground + 1, z);
                 }
             }
         }
@@ -223,18 +199,10 @@ public class ItemImplementation {
         return startPos;
     }
 
-    private boolean hasLandingSpot(Level level, BlockPos pos) {
-        BlockPos oneBelowPos = pos.below();
-        BlockPos twoBelowPos = pos.below(4);
-        BlockPos threeBelowPos = pos.below(8);
-        return !level.getBlockState(oneBelowPos).isAir()
-         || !level.getBlockState(twoBelowPos).isAir()
-            || !level.getBlockState(threeBelowPos).isAir();
-    }
-
-    boolean onUseEscapeRope(Player player, BlockPos structureEntryPos)
+    boolean onUseEscapeRope(ManagedTraveler traveler, BlockPos structureEntryPos)
     {
-        if(isInStructure(player) && structureEntryPos != null)
+        Player player = traveler.getPlayer();
+        if(isInStructure(traveler) && structureEntryPos != null)
         {
             player.teleportTo(
                 structureEntryPos.getX() + 0.5, structureEntryPos.getY(), structureEntryPos.getZ() + 0.5
@@ -262,61 +230,79 @@ public class ItemImplementation {
     }
 
     /**
-     * Checks all items in player inventory for Lasting enchantment
-     * Tracks expiration time and removes expired items
+     * Schedules a Lasting item that entered a traveler's inventory on the expiration queue,
+     * stamping its expiration tick if it does not have one yet
      */
-    void checkLastingEnchantments(ServerPlayer player, IntObjectMap<ItemStack> lastingItems)
+    LastingExpirationQueue.Entry registerLastingItem(ManagedTraveler traveler, int slot, ItemStack stack)
     {
-        Inventory inventory = player.getInventory();
-        long currentTick = currentTicks();
-
-        List<Integer> slotsToRemove = new ArrayList<>();
-        for (Integer i : lastingItems.keySet())
+        Long expirationTick = getLastingExpiration(stack);
+        if (expirationTick == null)
         {
-            ItemStack stack = inventory.getItem(i);
-            if (stack.isEmpty()) continue;
-            if(!stack.isEnchanted()) continue;
+            expirationTick = calculateLastingExpiration(stack);
+            setLastingExpiration(stack, expirationTick);
+            if (LoggerProject.allowDebug("020003"))
+                LoggerProject.logDebugAllowed("020003", String.format("Player %s has new Lasting item: %s, expires at tick %d",
+                    traveler.getPlayer().getName().getString(), stack.getDisplayName().getString(), expirationTick));
+        }
+        return lastingQueue.schedule(traveler, slot, stack, expirationTick);
+    }
 
-            int lastingLevel = EnchantmentHelper.getItemEnchantmentLevel(ModEnchantments.LASTING.get(), stack);
-            if (lastingLevel > 0)
-            {
-                Long expirationTick = getLastingExpiration(stack);
-                if (expirationTick == null)
-                {
-                    expirationTick = calculateLastingExpiration(stack);
-                    setLastingExpiration(stack, expirationTick);
-                    LoggerProject.logDebug("020003",
-                        String.format("Player %s has new Lasting item: %s, expires at tick %d",
-                            player.getName().getString(), stack.getDisplayName().getString(), expirationTick));
-                }
+    void clearLastingItems() {
+        lastingQueue.clear();
+    }
 
-                // Check if item has expired
-                if (currentTick >= expirationTick) {
-                    slotsToRemove.add(i);
+    /**
+     * Expires every Lasting item whose expiration tick has passed, server wide.
+     * Only items that are actually due are touched.
+     */
+    void expireLastingItems()
+    {
+        long currentTick = currentTicks();
+        tickSnapshot = currentTick;
+        LastingExpirationQueue.Entry entry;
+        while ((entry = lastingQueue.pollDue(currentTick)) != null) {
+            expireLastingItem(entry, currentTick);
+        }
+    }
 
-                    LoggerProject.logInfo("020004",
-                        String.format("Lasting item expired for player %s: %s (tick %d >= %d)",
-                            player.getName().getString(), stack.getDisplayName().getString(),
-                            currentTick, expirationTick));
-                }
-            } else {
-                removeLastingMetaData(stack);
-            }
+    private void expireLastingItem(LastingExpirationQueue.Entry entry, long currentTick)
+    {
+        if (!(entry.traveler.getPlayer() instanceof ServerPlayer player)) return;
+        Inventory inventory = player.getInventory();
+        ItemStack stack = inventory.getItem(entry.slot);
+        if (stack != entry.stack || stack.isEmpty()) {
+            entry.traveler.dropLastingEntry(entry);     //moved, slot is rescanned and rescheduled
+            return;
         }
 
-        // Remove expired items
-        for (int slot : slotsToRemove)
-        {
-            ItemStack expiredStack = inventory.getItem(slot);
-            removeLastingMetaData(expiredStack);
-            inventory.setItem(slot, ItemStack.EMPTY);
+        int lastingLevel = EnchantmentHelper.getItemEnchantmentLevel(ModEnchantments.LASTING.get(), stack);
+        Long expirationTick = getLastingExpiration(stack);
+        if (lastingLevel <= 0 || expirationTick == null) {
+            removeLastingMetaData(stack);
+            entry.traveler.dropLastingEntry(entry);
+            return;
+        }
 
-            // Optional: Notify player
-            MESSAGER.sendBottomActionHint(
-                Component.translatable("enchantment.hbs_traveler_rewards.lasting.expired",
-                    expiredStack.getDisplayName()).getString()
-            );
+        //expiration was pushed back since this entry was scheduled
+        if (currentTick < expirationTick) {
+            lastingQueue.reschedule(entry, expirationTick);
+            return;
         }
+
+        if (LoggerProject.allowInfo("020004"))
+            LoggerProject.logInfoAllowed("020004", String.format("Lasting item expired for player %s: %s (tick %d >= %d)",
+                player.getName().getString(), stack.getDisplayName().getString(),
+                currentTick, expirationTick));
+
+        removeLastingMetaData(stack);
+        inventory.setItem(entry.slot, ItemStack.EMPTY);
+        entry.traveler.dropLastingEntry(entry);
+
+        // Optional: Notify player
+        MESSAGER.sendBottomActionHint(
+            Component.translatable("enchantment.hbs_traveler_rewards.lasting.expired",
+                stack.getDisplayName()).getString()
+        );
     }
 
     public long calculateLastingExpiration(ItemStack stack)
@@ -405,26 +391,55 @@ public class ItemImplementation {
         return GENERAL_CONFIG.getTotalTickCountWithSleep(GeneralConfig.OVERWORLD);
     }
 
+    // Server tick published once per server tick, safe to read from the client thread in integrated mode
+    private static volatile long tickSnapshot = 0;
+
+    static long getTickSnapshot() {
+        return tickSnapshot;
+    }
+
 
     //** Mob Ward **//
-    void wardMobs(ServerPlayer player, IntObjectMap<ItemStack> mobWards,  Set<Entity> nearbyEntities)
+
+    /**
+     * Wards mobs around every traveler carrying a mob ward, one shared pass per level
+     */
+    void wardMobs(Collection<ManagedTraveler> travelers) {
+        mobWardBroadphase.run(travelers);
+    }
+
+    /**
+     * Returns the decoded filter of a mob ward, cached against the identity of its
+     * "filterItem" tag. Writes to the filter replace that tag, so stale entries are never hit.
+     */
+    @Nullable
+    MobWardFilter getMobWardFilter(ItemStack mobWardStack)
     {
-        for (ItemStack mobWardStack : mobWards.values()) {
-            if(mobWardStack.getOrCreateTag().contains("filterItem")) {
-                ItemStack filterItem = ItemStack.of(mobWardStack.getTag().getCompound("filterItem"));
-                nearbyEntities.forEach(e -> wardEntity(e, player, filterItem));
-            }
+        if(!mobWardStack.hasTag() || !mobWardStack.getTag().contains("filterItem")) return null;
+        CompoundTag filterTag = mobWardStack.getTag().getCompound("filterItem");
+
+        MobWardFilter filter = mobWardFilters.getIfPresent(filterTag);
+        if(filter == null) {
+            filter = new MobWardFilter(ItemStack.of(filterTag));
+            mobWardFilters.put(filterTag, filter);
         }
+        return filter;
+    }
+
+    /**
+     * Drops the cached filter of a mob ward, call before its filter NBT is rewritten
+     */
+    public void invalidateMobWardFilter(ItemStack mobWardStack)
+    {
+        if(!mobWardStack.hasTag() || !mobWardStack.getTag().contains("filterItem")) return;
+        mobWardFilters.invalidate(mobWardStack.getTag().getCompound("filterItem"));
     }
 
-    private static void wardEntity(Entity entity, Player player, ItemStack filterItem) {
-        if(filterItem == null || filterItem.isEmpty()) return;
-        if(!(entity instanceof Mob mob)) return;
-        if(ModConfig.isMobWardedByItem(mob, filterItem.getItem()))
-            wardMob(mob, player);
+    void clearMobWardFilters() {
+        mobWardFilters.invalidateAll();
     }
 
-    private static void wardMob(Mob mob, Player player)
+    static void wardMob(Mob mob, Player player)
     {
         if (mob.getTarget() == player) mob.setTarget(null);
         mob.getBrain().eraseMemory(net.minecraft.world.entity.ai.memory.MemoryModuleType.ATTACK_TARGET);
@@ -584,4 +599,19 @@ public class ItemImplementation {
     private void onSimpleMessageBeaconUpdate(SimpleStringMessage m) {
         // Handle incoming simple string messages here
     }
+
+    //** INNER CLASSES
+
+    /**
+     * Decoded mob ward filter item and the entity type registry ids it wards
+     */
+    static class MobWardFilter {
+        final ItemStack filterItem;
+        final BitSet wardedEntityIds;
+
+        MobWardFilter(ItemStack filterItem) {
+            this.filterItem = filterItem;
+            this.wardedEntityIds = ModConfig.getEntityIdsWardedBy(filterItem.getItem());
+        }
+    }
 }
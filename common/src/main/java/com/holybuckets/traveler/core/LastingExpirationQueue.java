@@ -0,0 +1,119 @@
+package com.holybuckets.traveler.core;
+
+import net.minecraft.world.item.ItemStack;
+
+import javax.annotation.Nullable;
+import java.util.Comparator;
+import java.util.PriorityQueue;
+
+/**
+ * LastingExpirationQueue - Server wide queue of Lasting items ordered by expiration tick
+ *
+ * Items are scheduled when they enter a traveler's inventory and cancelled when they leave.
+ * Cancellation is lazy, cancelled entries are skipped when polled and compacted out once
+ * they make up the majority of the queue.
+ */
+class LastingExpirationQueue {
+
+    private static final int MIN_COMPACT_SIZE = 64;
+
+    private final PriorityQueue<Entry> queue;
+    private int cancelledCount;
+
+    LastingExpirationQueue() {
+        this.queue = new PriorityQueue<>(Comparator.comparingLong(e -> e.expirationTick));
+        this.cancelledCount = 0;
+    }
+
+    Entry schedule(ManagedTraveler traveler, int slot, ItemStack stack, long expirationTick)
+    {
+        Entry entry = new Entry(this, traveler, slot, stack, expirationTick);
+        entry.queued = true;
+        queue.add(entry);
+        return entry;
+    }
+
+    /**
+     * Re-adds a polled entry under a new expiration tick
+     */
+    void reschedule(Entry entry, long expirationTick)
+    {
+        if (entry.cancelled || entry.queued) return;
+        entry.expirationTick = expirationTick;
+        entry.queued = true;
+        queue.add(entry);
+    }
+
+    /**
+     * Returns the next entry due at or before currentTick, or null if none are due
+     */
+    @Nullable
+    Entry pollDue(long currentTick)
+    {
+        Entry head = queue.peek();
+        while (head != null && head.cancelled) {
+            queue.poll();
+            head.queued = false;
+            cancelledCount--;
+            head = queue.peek();
+        }
+
+        if (head == null || head.expirationTick > currentTick) return null;
+        queue.poll();
+        head.queued = false;
+        return head;
+    }
+
+    private void onCancelled()
+    {
+        cancelledCount++;
+        if (cancelledCount < MIN_COMPACT_SIZE || cancelledCount * 2 < queue.size()) return;
+
+        queue.removeIf(e -> {
+            if (!e.cancelled) return false;
+            e.queued = false;
+            return true;
+        });
+        cancelledCount = 0;
+    }
+
+    void clear() {
+        queue.forEach(e -> e.queued = false);
+        queue.clear();
+        cancelledCount = 0;
+    }
+
+    int size() {
+        return queue.size() - cancelledCount;
+    }
+
+    static class Entry {
+        private final LastingExpirationQueue owner;
+        final ManagedTraveler traveler;
+        final int slot;
+        final ItemStack stack;
+        private long expirationTick;
+        private boolean queued;
+        private boolean cancelled;
+
+        private Entry(LastingExpirationQueue owner, ManagedTraveler traveler, int slot, ItemStack stack, long expirationTick) {
+            this.owner = owner;
+            this.traveler = traveler;
+            this.slot = slot;
+            this.stack = stack;
+            this.expirationTick = expirationTick;
+            this.queued = false;
+            this.cancelled = false;
+        }
+
+        long getExpirationTick() {
+            return expirationTick;
+        }
+
+        void cancel() {
+            if (cancelled) return;
+            cancelled = true;
+            if (queued) owner.onCancelled();
+        }
+    }
+}
@@ -1,5 +1,7 @@
 package com.holybuckets.traveler.core;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import com.holybuckets.foundation.CommonClass;
 import com.holybuckets.foundation.GeneralConfig;
 import com.holybuckets.foundation.HBUtil;
@@ -10,7 +12,6 @@ import com.holybuckets.foundation.event.custom.TickType;
 import com.holybuckets.foundation.event.custom.WakeUpAllPlayersEvent;
 import com.holybuckets.foundation.modelInterface.IManagedPlayer;
 import com.holybuckets.foundation.player.ManagedPlayer;
-import com.holybuckets.foundation.structure.StructureAPI;
 import com.holybuckets.foundation.structure.StructureInfo;
 import com.holybuckets.foundation.structure.StructureManager;
 import com.holybuckets.traveler.LoggerProject;
@@ -25,6 +26,7 @@ import net.blay09.mods.balm.api.event.BalmEvents;
 import net.blay09.mods.balm.api.event.EventPriority;
 import net.blay09.mods.balm.api.event.TossItemEvent;
 import net.blay09.mods.balm.api.event.server.ServerStartingEvent;
+import net.blay09.mods.balm.api.event.server.ServerStoppedEvent;
 import net.minecraft.ChatFormatting;
 import net.minecraft.core.BlockPos;
 import net.minecraft.core.Vec3i;
@@ -75,18 +77,22 @@ public class ManagedTraveler implements IManagedPlayer {
     private final IntObjectMap<ItemStack> mobWards;
     private final IntObjectMap<ItemStack> potionPots;
     private final IntObjectMap<ItemStack> lastingItems;
-    private final Set<ItemStack> weapons;
+    private final IntObjectMap<ItemStack> weapons;
+    private final IntObjectMap<LastingExpirationQueue.Entry> lastingEntries;
+    private Inventory indexedInventory;     //inventory the slot maps above were built from
+    private int cyclesSinceFullScan;
 
     // Player reference
     private Player player;
     private ManagedPlayer managedPlayer;
     private static Player localPlayer;
     public static ManagedTraveler localTraveler;
-    private final Set<Integer> soulboundSlots; // Soulbound slot tracking (slot index -> is soulbound)
+    private long soulboundSlots; // Soulbound slot tracking, bit i set = inventory slot i is soulbound (41 slots)
     private final IntObjectMap<ItemStack> soulboundItemsToReturn; //The items in the soulbound slots we must return to player. Must be careful if they leave the game after dying.
 
     private BlockPos structureEntryPos;
     private StructureInfo closestStructureInfo;
+    private final StructureProximity structureProximity;
     private DeathLocation lastDeathLocation; // Death location tracking for Savior Orb
     boolean inventoryOpened;
     boolean damagedToday;
@@ -97,10 +103,13 @@ public class ManagedTraveler implements IManagedPlayer {
     private int pureHeartsConsumed; // Pure Heart tracking
     private int warriorTabletsUsed;
     private int lastWarriorRitual;  //helper variable to ensure one warriorTablet used per click
+    final PhaseHistogram[] tickTimings; //per phase tick timings, see TickProfiler
 
     //Statics
     private static GeneralConfig GENERAL_CONFIG;
     private static ItemImplementation ITEM_IMPLEMENTATION;
+    static final TravelerTickScheduler SCHEDULER = new TravelerTickScheduler();
+    private static final TravelerSaveQueue SAVE_QUEUE = new TravelerSaveQueue();
 
     //utility
 
@@ -111,7 +120,7 @@ public class ManagedTraveler implements IManagedPlayer {
     public ManagedTraveler(Player player) {
         this.player = player;
         this.soulboundItemsToReturn = new IntObjectHashMap<>();
-        this.soulboundSlots = new HashSet<>();
+        this.soulboundSlots = 0L;
         this.lastDeathLocation = null;
         this.pureHeartsConsumed = 0;
         this.totalDeaths = 0;
@@ -121,7 +130,12 @@ public class ManagedTraveler implements IManagedPlayer {
         this.mobWards = new IntObjectHashMap<>();
         this.potionPots = new IntObjectHashMap<>();
         this.lastingItems = new IntObjectHashMap<>();
-        this.weapons = new HashSet<>();
+        this.weapons = new IntObjectHashMap<>();
+        this.lastingEntries = new IntObjectHashMap<>();
+        this.indexedInventory = null;
+        this.cyclesSinceFullScan = 0;
+        this.structureProximity = new StructureProximity();
+        this.tickTimings = TickProfiler.newHistograms();
     }
 
     /**
@@ -130,6 +144,7 @@ public class ManagedTraveler implements IManagedPlayer {
     public static void init(EventRegistrar reg) {
         GENERAL_CONFIG = GeneralConfig.getInstance();
         reg.registerOnBeforeServerStarted( ManagedTraveler::onBeforeServerStarted, EventPriority.Lowest );
+        reg.registerOnServerStopped( ManagedTraveler::onServerStopped, EventPriority.Highest );
         reg.registerOnPlayerNearStructure(null, ManagedTraveler::onPlayerNearStructure);
         reg.registerOnServerTick(TickType.ON_SINGLE_TICK, ManagedTraveler::onServerTick);
         reg.registerOnTossItem(ManagedTraveler::onPlayerTossItem);
@@ -147,14 +162,14 @@ public class ManagedTraveler implements IManagedPlayer {
         if(traveler == null) return;
         boolean res = traveler.addSoulboundSlot(hand, stack);
         if(res) stack.shrink(1);
-        ManagedPlayer.save(serverPlayer);
+        SAVE_QUEUE.markDirty(traveler);
     }
 
     public static void usePureHeart(ServerPlayer serverPlayer) {
         ManagedTraveler traveler = ManagedTraveler.getManagedTraveler(serverPlayer);
         if(traveler == null) return;
         traveler.addHealth();
-        ManagedPlayer.save(serverPlayer);
+        SAVE_QUEUE.markDirty(traveler);
     }
 
     public static void useWarriorRitualTablet(ServerPlayer serverPlayer) {
@@ -164,7 +179,7 @@ public class ManagedTraveler implements IManagedPlayer {
     }
 
     public void onUseEscapeRope(ItemStack stack) {
-        boolean res = ITEM_IMPLEMENTATION.onUseEscapeRope(player, structureEntryPos);
+        boolean res = ITEM_IMPLEMENTATION.onUseEscapeRope(this, structureEntryPos);
         if(res) stack.shrink(1);
     }
 
@@ -189,7 +204,7 @@ public class ManagedTraveler implements IManagedPlayer {
         }
 
         int slotToSoulbound = slot;
-        boolean isSoulbound = soulboundSlots.contains(slot);
+        boolean isSoulbound = isSlotSoulbound(slot);
         boolean isMainHand = hand.equals(InteractionHand.MAIN_HAND);
         if(!isSoulbound) {
             //nothing, soulbound this slot
@@ -198,7 +213,7 @@ public class ManagedTraveler implements IManagedPlayer {
         {
             for (int i = 9; i < 37; i++) {
                 if(i==36) return false;   //inventory slots exhausted
-                if (!soulboundSlots.contains(i)) {
+                if (!isSlotSoulbound(i)) {
                     slotToSoulbound = i;
                     break;
                 }
@@ -209,14 +224,14 @@ public class ManagedTraveler implements IManagedPlayer {
             //internally, 36= offhand, 37 = helmet...chest, leg, boots = 40
             for (int i = OFFHAND_SLOT_INDEX; i>=35; i--) {
                 if(i==35) return false;   //armor soulbound slots exhausted
-                if (!soulboundSlots.contains(i)) {
+                if (!isSlotSoulbound(i)) {
                     slotToSoulbound = i;
                     break;
                 }
             }
         }
 
-        soulboundSlots.add(slotToSoulbound);
+        soulboundSlots |= 1L << slotToSoulbound;
         return true;
     }
 
@@ -224,21 +239,40 @@ public class ManagedTraveler implements IManagedPlayer {
      * Removes soulbound status from a slot
      */
     public void removeSoulboundSlot(int slotIndex) {
-        soulboundSlots.remove(slotIndex);
+        if(slotIndex < 0 || slotIndex >= Long.SIZE) return;
+        soulboundSlots &= ~(1L << slotIndex);
     }
 
     /**
      * Checks if a slot is soulbound
      */
     public boolean isSlotSoulbound(int slotIndex) {
-        return soulboundSlots.contains(slotIndex);
+        return isSlotSoulbound(soulboundSlots, slotIndex);
     }
 
     /**
-     * Gets all soulbound slot indices
+     * Checks a slot against a mask from getSoulboundMask()
+     */
+    public static boolean isSlotSoulbound(long soulboundMask, int slotIndex) {
+        return slotIndex >= 0 && slotIndex < Long.SIZE && (soulboundMask & (1L << slotIndex)) != 0;
+    }
+
+    /**
+     * Gets all soulbound slots as a bitmask, bit i set = slot i is soulbound
+     */
+    public long getSoulboundMask() {
+        return soulboundSlots;
+    }
+
+    /**
+     * Gets all soulbound slot indices, allocates a new set. Prefer getSoulboundMask() on hot paths.
      */
     public Set<Integer> getSoulboundSlots() {
-        return new HashSet<>(soulboundSlots);
+        Set<Integer> slots = new HashSet<>();
+        for (long mask = soulboundSlots; mask != 0; mask &= mask - 1) {
+            slots.add(Long.numberOfTrailingZeros(mask));
+        }
+        return slots;
     }
 
     //** PURE HEART TRACKING
@@ -260,6 +294,7 @@ public class ManagedTraveler implements IManagedPlayer {
 
     private void onPlayerNearStructure(StructureInfo structureInfo)
     {
+        structureProximity.offer(player, structureInfo);
         if(closestStructureInfo == null) {
             closestStructureInfo = structureInfo;
             return;
@@ -278,7 +313,7 @@ public class ManagedTraveler implements IManagedPlayer {
 
     public boolean isInStructure()
     {
-        return ITEM_IMPLEMENTATION.isInStructure(player);
+        return ITEM_IMPLEMENTATION.isInStructure(this);
     }
 
     public boolean isInDeepCaves() {
@@ -320,7 +355,7 @@ public class ManagedTraveler implements IManagedPlayer {
     }
 
     public void clearSoulboundSlots() {
-        soulboundSlots.clear();
+        soulboundSlots = 0L;
     }
 
 
@@ -336,7 +371,7 @@ public class ManagedTraveler implements IManagedPlayer {
         int warriorBonus = this.warriorTabletsUsed;
 
         float totalWeaponDamage = 0f;
-        for (ItemStack weapon : this.weapons) {
+        for (ItemStack weapon : this.weapons.values()) {
             if (weapon.isEmpty()) continue;
             for (AttributeModifier modifier : weapon.getAttributeModifiers(EquipmentSlot.MAINHAND).get(Attributes.ATTACK_DAMAGE)) {
                 totalWeaponDamage += (float) modifier.getAmount();
@@ -478,6 +513,10 @@ public class ManagedTraveler implements IManagedPlayer {
         localTraveler = null;
         localPlayer = null;
 
+        SAVE_QUEUE.flush(this);
+        this.cancelLastingEntries();
+        this.indexedInventory = null;   //reindex and reschedule on rejoin
+        this.structureProximity.invalidate();
         this.cleanupSoulboundItemsOnLeave();
     }
 
@@ -525,7 +564,7 @@ public class ManagedTraveler implements IManagedPlayer {
             restoreSoulboundItems();
             this.lastWarriorRitual = -1;                //reset ritual bonus on respawn
             this.setHealth(this.pureHeartsConsumed);    //set full health again on spawn
-            ManagedPlayer.save(serverPlayer);
+            SAVE_QUEUE.markDirty(this);
         }
     }
 
@@ -547,9 +586,11 @@ public class ManagedTraveler implements IManagedPlayer {
         if( level.getGameRules().getBoolean(GameRules.RULE_KEEPINVENTORY) ) return;
         if(!TravelerRewardsMain.CONFIG.simpleRewards.enableSoulboundSlots) return;
 
-        if (!soulboundSlots.isEmpty()) {
+        if (soulboundSlots != 0) {
             Inventory inventory = player.getInventory();
-            for (int slotIndex : soulboundSlots) {
+            for (long mask = soulboundSlots; mask != 0; mask &= mask - 1) {
+                int slotIndex = Long.numberOfTrailingZeros(mask);
+                if(slotIndex >= inventory.getContainerSize()) break;
                 if(inventory.getItem(slotIndex).isEmpty()) continue;
                 soulboundItemsToReturn.put(slotIndex, inventory.getItem(slotIndex).copy());
                 inventory.setItem(slotIndex, ItemStack.EMPTY);
@@ -600,58 +641,129 @@ public class ManagedTraveler implements IManagedPlayer {
      */
 
     /**
-     * Checks all inventory slots for items of note
+     * In place stack mutations (e.g. /enchant) do not pass through the Inventory hooks,
+     * so the whole inventory is reindexed every FULL_SCAN_CYCLES updates as a fallback
+     */
+    private static final int FULL_SCAN_CYCLES = 30;
+
+    /**
+     * Reclassifies inventory slots that changed since the last update
      */
     void takeInventoryOnTick()
     {
-        //Iterate over the players entire inventory
-        mobWards.clear();
-        potionPots.clear();
-        lastingItems.clear();
-        weapons.clear();
+        Inventory inventory = player.getInventory();
+        long changedSlots = ((InventoryChangeTracker) inventory).hbs_traveler$pollChangedSlots();
+        if(inventory != indexedInventory || ++cyclesSinceFullScan >= FULL_SCAN_CYCLES) {
+            indexedInventory = inventory;   //new player object after respawn or rejoin
+            cyclesSinceFullScan = 0;
+            changedSlots = InventoryChangeTracker.ALL_SLOTS;
+        }
 
         //user is opening  a container, we only want this true when they initially open it
         if(player.hasContainerOpen() ) {
             inventoryOpened = !inventoryOpened;
         }
 
-        Inventory inventory = player.getInventory();
-        for (int i = 0; i < inventory.getContainerSize(); i++) {
+        int size = inventory.getContainerSize();
+        while (changedSlots != 0L) {
+            int i = Long.numberOfTrailingZeros(changedSlots);
+            changedSlots &= changedSlots - 1;
+            if (i >= size) break;
             ItemStack stack = inventory.getItem(i);
-            if (stack.isEmpty()) continue;
+            indexSlot(i, stack);
+            indexLastingSlot(i, stack);
+        }
 
-            //Check for mob ward
-            if (stack.getItem() == ModItems.mobWard) {
-                mobWards.put(i, stack);
+        if(inventoryOpened) {
+            for (ItemStack stack : lastingItems.values()) {
+                if(ITEM_IMPLEMENTATION.getLastingExpiration(stack) == null) continue;
+                Long dur = ITEM_IMPLEMENTATION.calculateLastingDuration(stack);
+                ITEM_IMPLEMENTATION.setLastingDuration(stack, dur); //will sync with client
             }
+        }
 
-            //Check for potion pot
-            if (stack.getItem() == ModItems.potionPot) {
-                potionPots.put(i, stack);
-            }
+        //As long as inventory is open, this stays true, then false during while loop
+        inventoryOpened = player.hasContainerOpen();
+    }
 
-            boolean isWeapon = stack.is(ItemTags.SWORDS) || stack.is(ItemTags.AXES);
-            if(isWeapon) {
-                weapons.add(stack);
-            }
+    /**
+     * Checks a single inventory slot for items of note
+     */
+    private void indexSlot(int i, ItemStack stack)
+    {
+        mobWards.remove(i);
+        potionPots.remove(i);
+        lastingItems.remove(i);
+        weapons.remove(i);
+        if (stack.isEmpty()) return;
+
+        //Check for mob ward
+        if (stack.getItem() == ModItems.mobWard) {
+            mobWards.put(i, stack);
+        }
 
-            //Check for lasting enchantment
-            if(!stack.isEnchanted()) continue;
-            int lastingLevel = EnchantmentHelper.getItemEnchantmentLevel(ModEnchantments.LASTING.get(), stack);
-            if (lastingLevel > 0) {
-                lastingItems.put(i, stack);
-                if(inventoryOpened && ITEM_IMPLEMENTATION.getLastingExpiration(stack) != null) {
-                    Long dur = ITEM_IMPLEMENTATION.calculateLastingDuration(stack);
-                    ITEM_IMPLEMENTATION.setLastingDuration(stack, dur); //will sync with client
-                }
-            }
+        //Check for potion pot
+        if (stack.getItem() == ModItems.potionPot) {
+            potionPots.put(i, stack);
+        }
 
+        boolean isWeapon = stack.is(ItemTags.SWORDS) || stack.is(ItemTags.AXES);
+        if(isWeapon) {
+            weapons.put(i, stack);
         }
 
-        //As long as inventory is open, this stays true, then false during while loop
-        inventoryOpened = player.hasContainerOpen();
+        //Check for lasting enchantment
+        if(!stack.isEnchanted()) return;
+        int lastingLevel = EnchantmentHelper.getItemEnchantmentLevel(ModEnchantments.LASTING.get(), stack);
+        if (lastingLevel > 0) {
+            lastingItems.put(i, stack);
+        }
     }
 
+    /**
+     * Keeps the slot's expiration queue entry in step with the index,
+     * the entry is kept as long as the same stack stays in the slot
+     */
+    private void indexLastingSlot(int i, ItemStack stack)
+    {
+        LastingExpirationQueue.Entry entry = lastingEntries.get(i);
+        boolean isLasting = lastingItems.containsKey(i);
+        if (entry != null && (entry.stack != stack || !isLasting)) {
+            entry.cancel();
+            lastingEntries.remove(i);
+            entry = null;
+        }
+
+        if (isLasting && entry == null) {
+            lastingEntries.put(i, ITEM_IMPLEMENTATION.registerLastingItem(this, i, stack));
+        }
+    }
+
+    /**
+     * Called when a polled expiration entry will not be rescheduled. Forgets it and marks the
+     * slot changed so the next inventory pass registers whatever Lasting item is there now.
+     */
+    void dropLastingEntry(LastingExpirationQueue.Entry entry)
+    {
+        if (lastingEntries.get(entry.slot) == entry)
+            lastingEntries.remove(entry.slot);
+        if (player != null)
+            ((InventoryChangeTracker) player.getInventory()).hbs_traveler$markSlotChanged(entry.slot);
+    }
+
+    private void cancelLastingEntries() {
+        lastingEntries.values().forEach(LastingExpirationQueue.Entry::cancel);
+        lastingEntries.clear();
+    }
+
+    StructureProximity getStructureProximity() {
+        return structureProximity;
+    }
+
+    /**
+     * Tracks the last position outside of any structure as the escape charm entry point.
+     * The nearest structure is cached and only re-queried after the player moves.
+     */
     public void testClosestStructureOnTick()
     {
         BlockPos pPos = player.blockPosition();
@@ -659,12 +771,8 @@ public class ManagedTraveler implements IManagedPlayer {
             structureEntryPos = pPos.offset(0,1,0);
             return;
         }
-        StructureAPI api = StructureAPI.get(this.player.level());
-        if(api==null) return;
-        List<StructureInfo> info = api.nearestStructures(pPos, 1);
-        if(info.isEmpty()) return;
-        StructureInfo s = info.get(0);
-        if(!HBUtil.BlockUtil.inRange( pPos, s.getOrigin() , (int) StructureManager.NEAR_STRUCTURE_THRESHOLD)) {
+        structureProximity.update(player);
+        if(!structureProximity.isNear(player, (int) StructureManager.NEAR_STRUCTURE_THRESHOLD)) {
             closestStructureInfo = null;
             structureEntryPos = pPos.offset(0,1,0);
         }
@@ -680,12 +788,8 @@ public class ManagedTraveler implements IManagedPlayer {
         lastWarriorRitual = warriorTabletsUsed;
     }
 
-    private void updateLastingItemsOnTick() {
-        ITEM_IMPLEMENTATION.checkLastingEnchantments(getServerPlayer(), lastingItems);
-    }
-
-    private void wardMobsOnTick() {
-        ITEM_IMPLEMENTATION.wardMobs(getServerPlayer(), mobWards, getNearbyEntities());
+    Collection<ItemStack> getMobWards() {
+        return mobWards.values();
     }
 
 
@@ -739,24 +843,40 @@ public class ManagedTraveler implements IManagedPlayer {
 
     //** NBT SERIALIZATION **/
 
+    /**
+     * Schema versions
+     * 1 (no "schema" key) - soulbound slots as int array, positions as formatted strings
+     * 2 - soulbound slots as a long bitmask, positions as packed longs, death dimension as its own string
+     */
+    static final int SCHEMA_VERSION = 2;
+    private static final Map<String, String> DIMENSION_IDS = new ConcurrentHashMap<>();
+
+    /**
+     * Interns dimension ids so every traveler's death location shares one instance per dimension
+     */
+    static String internDimensionId(String dimensionId) {
+        return DIMENSION_IDS.computeIfAbsent(dimensionId, d -> d);
+    }
+
     @Override
     public CompoundTag serializeNBT()
     {
         CompoundTag tag = new CompoundTag();
+        tag.putByte("schema", (byte) SCHEMA_VERSION);
 
-        // Serialize soulbound slots
-        int[] slotArray = soulboundSlots.stream().mapToInt(Integer::intValue).toArray();
-        tag.putIntArray("soulbound_slots", slotArray);
+        // Serialize soulbound slots, bit i set = slot i soulbound
+        tag.putLong("soulbound", soulboundSlots);
 
         tag.putInt("total_hearts", pureHeartsConsumed);
         tag.putInt("warrior_tablets", warriorTabletsUsed);
 
         if (structureEntryPos != null) {
-            tag.putString("structure_entry_pos", HBUtil.BlockUtil.positionToString(structureEntryPos));
+            tag.putLong("structure_entry", structureEntryPos.asLong());
         }
 
         if (lastDeathLocation != null) {
-            tag.putString("death_location", lastDeathLocation.serialize());
+            tag.putLong("death_pos", lastDeathLocation.getPackedPosition());
+            tag.putString("death_dim", lastDeathLocation.getDimensionId());
         }
 
         tag.putInt("total_deaths", totalDeaths);
@@ -769,12 +889,50 @@ public class ManagedTraveler implements IManagedPlayer {
     {
         if (tag == null || tag.isEmpty()) return;
 
+        if (tag.contains("schema")) {
+            deserializeCurrent(tag);
+        } else {
+            deserializeLegacy(tag);
+        }
+
+        if (tag.contains("total_hearts")) {
+            pureHeartsConsumed = tag.getInt("total_hearts");
+            if(ITEM_IMPLEMENTATION!=null) //serverSide only
+                ITEM_IMPLEMENTATION.setHealth(player, pureHeartsConsumed);
+        }
+        if (tag.contains("warrior_tablets")) {
+            warriorTabletsUsed = tag.getInt("warrior_tablets");
+            lastWarriorRitual = -1;    //reset ritual bonus so it will be applied on next tick
+        }
+        if (tag.contains("total_deaths")) {
+            totalDeaths = tag.getInt("total_deaths");
+        }
+    }
+
+    private void deserializeCurrent(CompoundTag tag)
+    {
+        soulboundSlots = tag.getLong("soulbound");
+
+        if (tag.contains("structure_entry")) {
+            structureEntryPos = BlockPos.of(tag.getLong("structure_entry"));
+        }
+
+        if (tag.contains("death_pos") && tag.contains("death_dim")) {
+            lastDeathLocation = new DeathLocation(BlockPos.of(tag.getLong("death_pos")), tag.getString("death_dim"));
+        }
+    }
+
+    /**
+     * Reads schema 1 saves, they are written back in the current schema on the next save
+     */
+    private void deserializeLegacy(CompoundTag tag)
+    {
         // Deserialize soulbound slots
         if (tag.contains("soulbound_slots")) {
             int[] slotArray = tag.getIntArray("soulbound_slots");
-            soulboundSlots.clear();
+            soulboundSlots = 0L;
             for (int slot : slotArray) {
-                soulboundSlots.add(slot);
+                if(slot >= 0 && slot < Long.SIZE) soulboundSlots |= 1L << slot;
             }
         }
 
@@ -785,21 +943,9 @@ public class ManagedTraveler implements IManagedPlayer {
             structureEntryPos = (pos != null) ? new BlockPos(pos) : null;
         }
 
-        if (tag.contains("total_hearts")) {
-            pureHeartsConsumed = tag.getInt("total_hearts");
-            if(ITEM_IMPLEMENTATION!=null) //serverSide only
-                ITEM_IMPLEMENTATION.setHealth(player, pureHeartsConsumed);
-        }
-        if (tag.contains("warrior_tablets")) {
-            warriorTabletsUsed = tag.getInt("warrior_tablets");
-            lastWarriorRitual = -1;    //reset ritual bonus so it will be applied on next tick
-        }
         if (tag.contains("death_location")) {
             lastDeathLocation = DeathLocation.deserialize(tag.getString("death_location"));
         }
-        if (tag.contains("total_deaths")) {
-            totalDeaths = tag.getInt("total_deaths");
-        }
     }
 
 
@@ -807,35 +953,65 @@ public class ManagedTraveler implements IManagedPlayer {
     public static void onBeforeServerStarted(ServerStartingEvent event) {
         GENERAL_CONFIG = GeneralConfig.getInstance();
         ITEM_IMPLEMENTATION = ItemImplementation.getInstance();
+        SCHEDULER.clear();
+        SAVE_QUEUE.clear();
+        TickProfiler.reset(TRAVELERS.values());
+        ITEM_IMPLEMENTATION.clearLastingItems();
+        ITEM_IMPLEMENTATION.clearMobWardFilters();    //warded types depend on this server's loot tables
+    }
+
+    /**
+     * Saves every traveler still dirty, players normally flush on leave so this only
+     * catches travelers whose leave was never handled
+     */
+    private static void onServerStopped(ServerStoppedEvent event) {
+        SAVE_QUEUE.flushAll();
     }
 
     public static void onPlayerNearStructure(PlayerNearStructureEvent event) {
         Player player = event.getPlayer();
+        StructureIndex index = StructureIndex.get(player.level());
+        if(index != null) index.add(event.getStructureInfo());
+
         ManagedTraveler traveler = ManagedTraveler.getManagedTraveler(player);
         if(traveler == null) return;
         traveler.onPlayerNearStructure(event.getStructureInfo());
     }
 
-    // Add the tick handler method
+    private static final int WARD_PASS_SHARD = TravelerTickScheduler.INTERVAL / 2;
+
     /**
-     * Called every 20 server ticks to check for Lasting enchantment expiration
+     * Called every server tick, the scheduler staggers travelers across its interval
+     * so each traveler is still updated about once every 11 ticks
      */
-    private static int count=0;
-    private static void onServerTick(ServerTickEvent event)
+    private static void onServerTick(ServerTickEvent event) {
+        SCHEDULER.tick(TRAVELERS.values(), ManagedTraveler::onTravelerTick);
+        long t = System.nanoTime();
+        ITEM_IMPLEMENTATION.expireLastingItems();
+        t = TickProfiler.record(TickProfiler.Phase.LASTING_EXPIRY, t);
+        if(SCHEDULER.isShardTick(WARD_PASS_SHARD)) {
+            ITEM_IMPLEMENTATION.wardMobs(TRAVELERS.values());
+            TickProfiler.record(TickProfiler.Phase.MOB_WARDS, t);
+        }
+        SAVE_QUEUE.tick();
+    }
+
+    private static void onTravelerTick(ManagedTraveler traveler)
     {
-        if(count++<10) return;
-        count=0;
-
-        for (ManagedTraveler traveler : TRAVELERS.values()) {
-            if(traveler.player == null) continue;
-            if (traveler.player instanceof ServerPlayer serverPlayer) {
-                traveler.takeInventoryOnTick();
-                traveler.applyWarriorRitualBonusOnTick();
-                traveler.testClosestStructureOnTick();
-                traveler.updateLastingItemsOnTick();
-                traveler.wardMobsOnTick();
-                traveler.applyBlessingsOnTick();
-            }
+        if(traveler.player == null) return;
+        if(TRAVELERS.get(getId(traveler.player)) != traveler) return;  //left while deferred
+        if (traveler.player instanceof ServerPlayer serverPlayer) {
+            long start = System.nanoTime();
+            long t = start;
+            traveler.takeInventoryOnTick();
+            t = TickProfiler.record(TickProfiler.Phase.INVENTORY, traveler, t);
+            traveler.applyWarriorRitualBonusOnTick();
+            t = TickProfiler.record(TickProfiler.Phase.WARRIOR_RITUAL, traveler, t);
+            traveler.testClosestStructureOnTick();
+            t = TickProfiler.record(TickProfiler.Phase.STRUCTURE, traveler, t);
+            traveler.applyBlessingsOnTick();
+            TickProfiler.record(TickProfiler.Phase.BLESSINGS, traveler, t);
+            TickProfiler.record(TickProfiler.Phase.TRAVELER_TOTAL, traveler, start);
         }
     }
 
@@ -860,16 +1036,42 @@ public class ManagedTraveler implements IManagedPlayer {
     }
 
     public static final long DAY_LENGTH_TICKS = 24000;
+    private static final int TOOLTIP_CACHE_SIZE = 256;
+
+    // Formatted Lasting tooltip line per stack tag, reused while the remaining time stays in the same second
+    private static final Cache<CompoundTag, LastingTooltip> LASTING_TOOLTIPS = CacheBuilder.newBuilder()
+        .weakKeys()                 //identity keys, entries die with the stack's tag
+        .maximumSize(TOOLTIP_CACHE_SIZE)
+        .build();
+
     public void appendLastingTooltip(ItemStack stack, List<Component> tooltip)
     {
+        CompoundTag tag = stack.getTag();
+        if(tag == null) return;
+
         //clientSide default
-       Long ticksLeft =  ItemImplementation.getLastingDuration(stack);
-       if(GeneralConfig.getInstance().isIntegrated()) {
-            ticksLeft = ITEM_IMPLEMENTATION.calculateLastingDuration(stack);
-       }
+        Long ticksLeft = null;
+        if(GeneralConfig.getInstance().isIntegrated()) {
+            if(tag.contains("LastingExpiration"))
+                ticksLeft = Math.max(0, tag.getLong("LastingExpiration") - ItemImplementation.getTickSnapshot());
+        }
+        else if(tag.contains("LastingDuration")) {
+            ticksLeft = tag.getLong("LastingDuration");
+        }
+
+        if(ticksLeft == null) return;
 
-       if(ticksLeft == null) return;
+        long second = ticksLeft / 20;
+        LastingTooltip cached = LASTING_TOOLTIPS.getIfPresent(tag);
+        if(cached == null || cached.second != second) {
+            cached = new LastingTooltip(second, formatLastingTooltip(ticksLeft));
+            LASTING_TOOLTIPS.put(tag, cached);
+        }
+        tooltip.add(cached.line);
+    }
 
+    private static Component formatLastingTooltip(long ticksLeft)
+    {
        String timeLeft;
        if(ticksLeft > DAY_LENGTH_TICKS) {
            timeLeft = String.format("%.0f days", (float)ticksLeft / DAY_LENGTH_TICKS);
@@ -881,12 +1083,22 @@ public class ManagedTraveler implements IManagedPlayer {
            timeLeft = String.format("%d seconds", ticksLeft / 20);
        }
 
-        tooltip.add(Component.translatable(
+        return Component.translatable(
                 "tooltip.hbs_traveler_rewards.lasting.time_remaining", timeLeft)
             .withStyle(style -> style
                 .withColor(ChatFormatting.RED)
                 .withItalic(true)
-            ));
+            );
+    }
+
+    private static class LastingTooltip {
+        private final long second;
+        private final Component line;
+
+        private LastingTooltip(long second, Component line) {
+            this.second = second;
+            this.line = line;
+        }
     }
 
 
@@ -903,14 +1115,18 @@ public class ManagedTraveler implements IManagedPlayer {
             this.x = pos.getX();
             this.y = pos.getY();
             this.z = pos.getZ();
-            this.dimensionId = dimensionId;
+            this.dimensionId = internDimensionId(dimensionId);
         }
 
         private DeathLocation(int x, int y, int z, String dimensionId) {
             this.x = x;
             this.y = y;
             this.z = z;
-            this.dimensionId = dimensionId;
+            this.dimensionId = internDimensionId(dimensionId);
+        }
+
+        long getPackedPosition() {
+            return net.minecraft.core.BlockPos.asLong(x, y, z);
         }
 
         public net.minecraft.core.BlockPos getPosition() {
@@ -921,10 +1137,6 @@ public class ManagedTraveler implements IManagedPlayer {
             return dimensionId;
         }
 
-        public String serialize() {
-            return String.format("%d,%d,%d|%s", x, y, z, dimensionId);
-        }
-
         @Nullable
         public static DeathLocation deserialize(String data) {
             try {
@@ -5,6 +5,8 @@ import com.holybuckets.traveler.LoggerProject;
 import net.minecraft.server.level.ServerPlayer;
 import net.minecraft.world.entity.player.Player;
 
+import java.util.List;
+
 import static com.holybuckets.traveler.core.ManagedTraveler.TRAVELERS;
 
 public class ManagedTravelerApi {
@@ -33,6 +35,20 @@ public class ManagedTravelerApi {
         }
     }
 
+    /**
+     * Per phase traveler tick timings, the topN slowest travelers, then scheduler backlog and lag
+     */
+    public static List<String> getTickPerfReport(int topN) {
+        List<String> lines = TickProfiler.report(ManagedTraveler.TRAVELERS.values(), topN);
+        lines.addAll(ManagedTraveler.SCHEDULER.report());
+        return lines;
+    }
+
+    public static void resetTickPerf() {
+        TickProfiler.reset(ManagedTraveler.TRAVELERS.values());
+        ManagedTraveler.SCHEDULER.resetStats();
+    }
+
 
     private static ManagedTraveler getManagedTraveler(Player player) throws ManagedTravelerException {
         if(!(player instanceof ServerPlayer)) {
@@ -0,0 +1,149 @@
+package com.holybuckets.traveler.core;
+
+import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.longs.LongArrayList;
+import it.unimi.dsi.fastutil.longs.LongList;
+import net.minecraft.core.SectionPos;
+import net.minecraft.core.registries.BuiltInRegistries;
+import net.minecraft.server.level.ServerLevel;
+import net.minecraft.server.level.ServerPlayer;
+import net.minecraft.world.entity.Mob;
+import net.minecraft.world.item.ItemStack;
+import net.minecraft.world.level.ChunkPos;
+import net.minecraft.world.phys.AABB;
+
+import java.util.*;
+
+/**
+ * MobWardBroadphase - Wards mobs for all travelers of a level in one pass
+ *
+ * Once per cycle every traveler holding a configured mob ward becomes an owner. Mobs around
+ * all owners are gathered and bucketed by chunk once, then each (mob, owner) pair in range is
+ * tested once against the owner's combined ward bits. A mob warded by several owners has its
+ * memories erased once and flees the nearest of them.
+ */
+class MobWardBroadphase {
+
+    static final int WARD_RADIUS = 32;
+    private static final double WARD_RADIUS_SQ = WARD_RADIUS * WARD_RADIUS;
+
+    private final ItemImplementation impl;
+    private final Map<ServerLevel, List<Owner>> ownersByLevel;
+    private final Long2ObjectMap<List<Mob>> mobsByChunk;
+    private final Map<Mob, Owner> nearestOwner;
+
+    MobWardBroadphase(ItemImplementation impl) {
+        this.impl = impl;
+        this.ownersByLevel = new HashMap<>();
+        this.mobsByChunk = new Long2ObjectOpenHashMap<>();
+        this.nearestOwner = new IdentityHashMap<>();
+    }
+
+    void run(Collection<ManagedTraveler> travelers)
+    {
+        ownersByLevel.clear();
+        for (ManagedTraveler traveler : travelers) {
+            if (!(traveler.getPlayer() instanceof ServerPlayer player)) continue;
+            BitSet warded = collectWardedEntityIds(traveler);
+            if (warded.isEmpty()) continue;
+            ownersByLevel.computeIfAbsent(player.serverLevel(), l -> new ArrayList<>()).add(new Owner(player, warded));
+        }
+
+        ownersByLevel.forEach(this::runLevel);
+        ownersByLevel.clear();
+    }
+
+    /**
+     * Combines every ward the traveler carries into one set of warded entity ids
+     */
+    private BitSet collectWardedEntityIds(ManagedTraveler traveler)
+    {
+        BitSet warded = new BitSet();
+        for (ItemStack mobWardStack : traveler.getMobWards()) {
+            ItemImplementation.MobWardFilter filter = impl.getMobWardFilter(mobWardStack);
+            if (filter == null) continue;
+            warded.or(filter.wardedEntityIds);
+        }
+        return warded;
+    }
+
+    private void runLevel(ServerLevel level, List<Owner> owners)
+    {
+        //1. Bucket mobs around all owners by chunk, each chunk queried once
+        mobsByChunk.clear();
+        int minY = Integer.MAX_VALUE;
+        int maxY = Integer.MIN_VALUE;
+        for (Owner owner : owners) {
+            minY = Math.min(minY, owner.player.getBlockY() - WARD_RADIUS);
+            maxY = Math.max(maxY, owner.player.getBlockY() + WARD_RADIUS);
+        }
+
+        for (Owner owner : owners)
+        {
+            int minCx = SectionPos.blockToSectionCoord(owner.player.getBlockX() - WARD_RADIUS);
+            int maxCx = SectionPos.blockToSectionCoord(owner.player.getBlockX() + WARD_RADIUS);
+            int minCz = SectionPos.blockToSectionCoord(owner.player.getBlockZ() - WARD_RADIUS);
+            int maxCz = SectionPos.blockToSectionCoord(owner.player.getBlockZ() + WARD_RADIUS);
+            for (int cx = minCx; cx <= maxCx; cx++) {
+                for (int cz = minCz; cz <= maxCz; cz++) {
+                    long key = ChunkPos.asLong(cx, cz);
+                    if (!mobsByChunk.containsKey(key))
+                        mobsByChunk.put(key, collectMobs(level, cx, cz, minY, maxY));
+                    owner.chunks.add(key);
+                }
+            }
+        }
+
+        //2. Test each (mob, owner) pair once, keep the nearest warding owner per mob
+        nearestOwner.clear();
+        for (Owner owner : owners)
+        {
+            for (int i = 0; i < owner.chunks.size(); i++)
+            {
+                for (Mob mob : mobsByChunk.get(owner.chunks.getLong(i)))
+                {
+                    int typeId = BuiltInRegistries.ENTITY_TYPE.getId(mob.getType());
+                    if (!owner.warded.get(typeId)) continue;
+                    double distSq = mob.distanceToSqr(owner.player);
+                    if (distSq > WARD_RADIUS_SQ) continue;
+
+                    if (mob.getTarget() == owner.player) mob.setTarget(null);
+                    Owner current = nearestOwner.get(mob);
+                    if (current == null || distSq < mob.distanceToSqr(current.player))
+                        nearestOwner.put(mob, owner);
+                }
+            }
+        }
+
+        //3. Apply ward once per mob
+        nearestOwner.forEach((mob, owner) -> ItemImplementation.wardMob(mob, owner.player));
+        nearestOwner.clear();
+        mobsByChunk.clear();
+    }
+
+    private static List<Mob> collectMobs(ServerLevel level, int cx, int cz, int minY, int maxY)
+    {
+        if (!level.hasChunk(cx, cz)) return List.of();
+        int x = SectionPos.sectionToBlockCoord(cx);
+        int z = SectionPos.sectionToBlockCoord(cz);
+        AABB box = new AABB(x, minY, z, x + 16, maxY, z + 16);
+
+        //Only keep mobs whose block position is in this chunk so no mob lands in two buckets
+        return level.getEntitiesOfClass(Mob.class, box, mob -> mob.isAlive()
+            && SectionPos.blockToSectionCoord(mob.getBlockX()) == cx
+            && SectionPos.blockToSectionCoord(mob.getBlockZ()) == cz);
+    }
+
+    private static class Owner {
+        private final ServerPlayer player;
+        private final BitSet warded;
+        private final LongList chunks;
+
+        private Owner(ServerPlayer player, BitSet warded) {
+            this.player = player;
+            this.warded = warded;
+            this.chunks = new LongArrayList();
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package com.holybuckets.traveler.core;
+
+import java.util.Arrays;
+
+/**
+ * PhaseHistogram - Log-linear histogram of nanosecond durations
+ *
+ * Values are bucketed by their highest set bit, then split into SUB_BUCKETS linear
+ * sub-buckets within each power of two, the same layout HdrHistogram uses. Every bucket
+ * is within 1/SUB_BUCKETS (25%) of the values it holds, recording is a few bit operations
+ * and one array increment with no allocation. Not thread safe, server thread only.
+ */
+class PhaseHistogram {
+
+    private static final int SUB_BITS = 2;
+    private static final int SUB_BUCKETS = 1 << SUB_BITS;
+    private static final int MAX_EXPONENT = 40;     //~18 minutes, larger values land in the last bucket
+    private static final int BUCKETS = (MAX_EXPONENT + 1) * SUB_BUCKETS;
+
+    private final long[] counts;
+    private long count;
+    private long total;
+    private long max;
+
+    PhaseHistogram() {
+        this.counts = new long[BUCKETS];
+    }
+
+    void record(long nanos)
+    {
+        if (nanos < 0) nanos = 0;
+        counts[bucketOf(nanos)]++;
+        count++;
+        total += nanos;
+        if (nanos > max) max = nanos;
+    }
+
+    private static int bucketOf(long value)
+    {
+        if (value < SUB_BUCKETS) return (int) value;      //exact for tiny values
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        if (exponent > MAX_EXPONENT) return BUCKETS - 1;
+        int sub = (int) (value >>> (exponent - SUB_BITS)) & (SUB_BUCKETS - 1);
+        return (exponent - SUB_BITS + 1) * SUB_BUCKETS + sub;
+    }
+
+    /**
+     * Highest value that lands in the bucket
+     */
+    private static long upperBoundOf(int bucket)
+    {
+        if (bucket < SUB_BUCKETS) return bucket;
+        int exponent = bucket / SUB_BUCKETS + SUB_BITS - 1;
+        int sub = bucket % SUB_BUCKETS;
+        long width = 1L << (exponent - SUB_BITS);
+        return (1L << exponent) + (sub + 1) * width - 1;
+    }
+
+    /**
+     * Approximate value at the given percentile (0-100), never above the recorded max
+     */
+    long percentile(double percentile)
+    {
+        if (count == 0) return 0;
+        long target = Math.max(1, (long) Math.ceil(count * percentile / 100.0));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts[i];
+            if (seen >= target) return Math.min(upperBoundOf(i), max);
+        }
+        return max;
+    }
+
+    long getCount() {
+        return count;
+    }
+
+    long getTotal() {
+        return total;
+    }
+
+    long getMax() {
+        return max;
+    }
+
+    long getMean() {
+        return (count == 0) ? 0 : total / count;
+    }
+
+    void reset()
+    {
+        Arrays.fill(counts, 0);
+        count = 0;
+        total = 0;
+        max = 0;
+    }
+}
@@ -0,0 +1,153 @@
+package com.holybuckets.traveler.core;
+
+import com.holybuckets.foundation.structure.StructureAPI;
+import com.holybuckets.foundation.structure.StructureInfo;
+import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
+import it.unimi.dsi.fastutil.longs.LongSet;
+import net.minecraft.core.BlockPos;
+import net.minecraft.server.level.ServerLevel;
+import net.minecraft.world.level.ChunkPos;
+import net.minecraft.world.level.Level;
+
+import javax.annotation.Nullable;
+import java.util.*;
+
+/**
+ * StructureIndex - Per level grid of known structure origins
+ *
+ * Structures are added as they are discovered: reported near a player or returned by a
+ * StructureAPI query. Origins are bucketed into CELL_SIZE square cells so nearest lookups
+ * only visit the cells around the query position, independent of how much of the world has
+ * been explored. An indexed hit is trusted when it is within TRUSTED_RADIUS or the query cell
+ * was already scanned by a StructureAPI query, otherwise the API is asked once for that cell
+ * and its result indexed. Indexes are dropped when their level unloads.
+ */
+public class StructureIndex {
+
+    static final int CELL_SHIFT = 8;                            //256 block cells
+    static final int CELL_SIZE = 1 << CELL_SHIFT;
+    static final int MAX_SEARCH_RADIUS = 512;
+    private static final int MAX_SEARCH_RINGS = MAX_SEARCH_RADIUS >> CELL_SHIFT;
+    static final int TRUSTED_RADIUS = 128;     //closer hits are used without asking the API
+
+    private static final Map<Level, StructureIndex> INDEXES = new HashMap<>();
+
+    private final ServerLevel level;
+    private final Long2ObjectMap<List<StructureInfo>> cells;
+    private final LongSet origins;
+    private final LongSet scannedCells;      //cells a StructureAPI query was made from
+
+    private StructureIndex(ServerLevel level) {
+        this.level = level;
+        this.cells = new Long2ObjectOpenHashMap<>();
+        this.origins = new LongOpenHashSet();
+        this.scannedCells = new LongOpenHashSet();
+    }
+
+    //** REGISTRY
+
+    public static void onLevelLoad(ServerLevel level) {
+        INDEXES.put(level, new StructureIndex(level));
+    }
+
+    public static void onLevelUnload(Level level) {
+        INDEXES.remove(level);
+    }
+
+    public static void clear() {
+        INDEXES.clear();
+    }
+
+    @Nullable
+    public static StructureIndex get(Level level) {
+        return INDEXES.get(level);
+    }
+
+    //** INDEX
+
+    private static long cellKey(int x, int z) {
+        return ChunkPos.asLong(x >> CELL_SHIFT, z >> CELL_SHIFT);
+    }
+
+    /**
+     * Adds a discovered structure, structures already indexed at the same origin are ignored
+     */
+    public void add(StructureInfo structure)
+    {
+        if (structure == null) return;
+        BlockPos origin = structure.getOrigin();
+        if (origin == null || !origins.add(origin.asLong())) return;
+        cells.computeIfAbsent(cellKey(origin.getX(), origin.getZ()), k -> new ArrayList<>(2)).add(structure);
+    }
+
+    public int size() {
+        return origins.size();
+    }
+
+    /**
+     * Nearest indexed structure within MAX_SEARCH_RADIUS, searched ring by ring outward
+     * from the query cell and stopped once no further ring can hold anything closer
+     */
+    @Nullable
+    public StructureInfo nearestIndexed(BlockPos pos)
+    {
+        int cx = pos.getX() >> CELL_SHIFT;
+        int cz = pos.getZ() >> CELL_SHIFT;
+        StructureInfo best = null;
+        double bestDistSq = Double.MAX_VALUE;
+
+        for (int ring = 0; ring <= MAX_SEARCH_RINGS; ring++)
+        {
+            for (int dx = -ring; dx <= ring; dx++) {
+                for (int dz = -ring; dz <= ring; dz++) {
+                    if (Math.abs(dx) != ring && Math.abs(dz) != ring) continue;     //ring edge only
+                    List<StructureInfo> cell = cells.get(ChunkPos.asLong(cx + dx, cz + dz));
+                    if (cell == null) continue;
+                    for (StructureInfo s : cell) {
+                        double distSq = pos.distSqr(s.getOrigin());
+                        if (distSq < bestDistSq) {
+                            bestDistSq = distSq;
+                            best = s;
+                        }
+                    }
+                }
+            }
+
+            //Cells past this ring are at least ring * CELL_SIZE blocks away horizontally
+            double ringDist = (double) ring * CELL_SIZE;
+            if (best != null && bestDistSq <= ringDist * ringDist) break;
+        }
+
+        if (best != null && bestDistSq > (double) MAX_SEARCH_RADIUS * MAX_SEARCH_RADIUS) return null;
+        return best;
+    }
+
+    /**
+     * Nearest structure to pos. Uses the index when its hit is within TRUSTED_RADIUS or this
+     * cell was scanned before, otherwise asks the level's StructureAPI, indexes the result and
+     * returns the closer of the two
+     */
+    @Nullable
+    public StructureInfo nearest(BlockPos pos)
+    {
+        StructureInfo indexed = nearestIndexed(pos);
+        long cell = cellKey(pos.getX(), pos.getZ());
+        if (scannedCells.contains(cell)) return indexed;
+        if (indexed != null && pos.distSqr(indexed.getOrigin()) <= (double) TRUSTED_RADIUS * TRUSTED_RADIUS)
+            return indexed;
+
+        StructureAPI api = StructureAPI.get(level);
+        if (api == null) return indexed;
+        scannedCells.add(cell);
+        List<StructureInfo> info = api.nearestStructures(pos, 1);
+        if (info.isEmpty() || info.get(0).getOrigin() == null) return indexed;
+
+        StructureInfo queried = info.get(0);
+        add(queried);
+        if (indexed == null || pos.distSqr(queried.getOrigin()) < pos.distSqr(indexed.getOrigin()))
+            return queried;
+        return indexed;
+    }
+}
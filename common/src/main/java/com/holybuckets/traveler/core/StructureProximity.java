@@ -0,0 +1,120 @@
+package com.holybuckets.traveler.core;
+
+import com.holybuckets.foundation.structure.StructureInfo;
+import net.minecraft.core.BlockPos;
+import net.minecraft.world.entity.player.Player;
+import net.minecraft.world.level.ChunkPos;
+import net.minecraft.world.level.Level;
+
+import javax.annotation.Nullable;
+
+/**
+ * StructureProximity - Per traveler cache of the nearest structure
+ *
+ * The nearest structure is only queried again once the player has moved RECOMPUTE_DISTANCE
+ * blocks from the last query position, crossed a chunk border or changed level. In between,
+ * the distance to the cached origin is all that is computed. Range checks use hysteresis,
+ * a player counts as near once inside the range and stops only once HYSTERESIS blocks past it,
+ * so standing on a structure boundary does not flip the state every cycle.
+ */
+class StructureProximity {
+
+    static final int RECOMPUTE_DISTANCE = 8;
+    static final int HYSTERESIS = 8;
+    private static final int RECOMPUTE_DISTANCE_SQ = RECOMPUTE_DISTANCE * RECOMPUTE_DISTANCE;
+
+    private Level level;
+    private BlockPos queryPos;
+    private long queryChunk;
+    private StructureInfo nearest;
+    private boolean near;
+
+    StructureProximity() {
+        invalidate();
+    }
+
+    /**
+     * Recomputes the nearest structure if the player moved far enough since the last query
+     */
+    void update(Player player)
+    {
+        BlockPos pos = player.blockPosition();
+        Level playerLevel = player.level();
+        if (playerLevel == level && queryPos != null
+            && ChunkPos.asLong(pos) == queryChunk
+            && pos.distSqr(queryPos) < RECOMPUTE_DISTANCE_SQ) return;
+
+        level = playerLevel;
+        queryPos = pos;
+        queryChunk = ChunkPos.asLong(pos);
+        nearest = null;
+
+        StructureIndex index = StructureIndex.get(playerLevel);
+        if (index == null) return;
+        nearest = index.nearest(pos);
+    }
+
+    /**
+     * Offers a structure reported near the player, kept if closer than the cached one
+     */
+    void offer(Player player, StructureInfo structure)
+    {
+        if (structure == null || structure.getOrigin() == null) return;
+        if (player.level() != level) return;
+        BlockPos pos = player.blockPosition();
+        if (nearest == null || nearest.getOrigin() == null
+            || pos.distSqr(structure.getOrigin()) < pos.distSqr(nearest.getOrigin())) {
+            nearest = structure;
+        }
+    }
+
+    @Nullable
+    StructureInfo getNearest() {
+        return nearest;
+    }
+
+    /**
+     * Distance squared from the player to the cached nearest structure, or -1 if there is none
+     */
+    double distanceSqr(Player player)
+    {
+        if (nearest == null || nearest.getOrigin() == null) return -1;
+        return player.blockPosition().distSqr(nearest.getOrigin());
+    }
+
+    /**
+     * True if the cached nearest structure is within range, without hysteresis
+     */
+    boolean isWithin(Player player, int range)
+    {
+        double distSq = distanceSqr(player);
+        return distSq >= 0 && distSq <= (double) range * range;
+    }
+
+    /**
+     * True if the player is near the cached nearest structure. Becomes true inside range
+     * and false only past range + HYSTERESIS.
+     */
+    boolean isNear(Player player, int range)
+    {
+        double distSq = distanceSqr(player);
+        if (distSq < 0) {
+            near = false;
+        } else if (near) {
+            int exit = range + HYSTERESIS;
+            near = distSq <= (double) exit * exit;
+        } else {
+            near = distSq <= (double) range * range;
+        }
+        return near;
+    }
+
+    void invalidate()
+    {
+        level = null;
+        queryPos = null;
+        queryChunk = 0;
+        nearest = null;
+        near = false;
+    }
+}
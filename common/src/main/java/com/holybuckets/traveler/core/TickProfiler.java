@@ -0,0 +1,124 @@
+package com.holybuckets.traveler.core;
+
+import java.util.*;
+
+/**
+ * TickProfiler - Nanosecond timings of each traveler tick phase
+ *
+ * Every phase is recorded into a server wide histogram, per traveler phases also into the
+ * histograms held by the ManagedTraveler itself, so the slowest players can be ranked and
+ * their timings go away with them. Recording costs one System.nanoTime() call and a bucket
+ * increment per phase. Server thread only.
+ */
+class TickProfiler {
+
+    enum Phase {
+        INVENTORY("inventory", true),
+        WARRIOR_RITUAL("warriorRitual", true),
+        STRUCTURE("structure", true),
+        BLESSINGS("blessings", true),
+        TRAVELER_TOTAL("travelerTotal", true),
+        LASTING_EXPIRY("lastingExpiry", false),
+        MOB_WARDS("mobWards", false);
+
+        final String label;
+        final boolean perTraveler;
+
+        Phase(String label, boolean perTraveler) {
+            this.label = label;
+            this.perTraveler = perTraveler;
+        }
+    }
+
+    private static final Phase[] PHASES = Phase.values();
+    private static final PhaseHistogram[] AGGREGATE = newHistograms();
+
+    static PhaseHistogram[] newHistograms() {
+        PhaseHistogram[] histograms = new PhaseHistogram[PHASES.length];
+        for (int i = 0; i < histograms.length; i++) {
+            histograms[i] = new PhaseHistogram();
+        }
+        return histograms;
+    }
+
+    /**
+     * Records a server wide phase that started at startNanos, returns the current time
+     * so consecutive phases can chain their start
+     */
+    static long record(Phase phase, long startNanos)
+    {
+        long now = System.nanoTime();
+        AGGREGATE[phase.ordinal()].record(now - startNanos);
+        return now;
+    }
+
+    /**
+     * Records a per traveler phase that started at startNanos, returns the current time
+     */
+    static long record(Phase phase, ManagedTraveler traveler, long startNanos)
+    {
+        long now = System.nanoTime();
+        long elapsed = now - startNanos;
+        AGGREGATE[phase.ordinal()].record(elapsed);
+        traveler.tickTimings[phase.ordinal()].record(elapsed);
+        return now;
+    }
+
+    static void reset(Collection<ManagedTraveler> travelers)
+    {
+        for (PhaseHistogram histogram : AGGREGATE) {
+            histogram.reset();
+        }
+        for (ManagedTraveler traveler : travelers) {
+            for (PhaseHistogram histogram : traveler.tickTimings) {
+                histogram.reset();
+            }
+        }
+    }
+
+    /**
+     * Report lines: one per phase with count, mean, p50, p99 and max in microseconds,
+     * then the topN travelers ranked by p99 of their whole traveler tick
+     */
+    static List<String> report(Collection<ManagedTraveler> travelers, int topN)
+    {
+        List<String> lines = new ArrayList<>();
+        lines.add("Traveler tick phases (us): count mean p50 p99 max");
+        for (Phase phase : PHASES) {
+            lines.add("  " + phase.label + ": " + summarize(AGGREGATE[phase.ordinal()]));
+        }
+
+        int total = Phase.TRAVELER_TOTAL.ordinal();
+        List<ManagedTraveler> ranked = new ArrayList<>();
+        for (ManagedTraveler traveler : travelers) {
+            if (traveler.getPlayer() != null && traveler.tickTimings[total].getCount() > 0) ranked.add(traveler);
+        }
+        ranked.sort(Comparator.comparingLong((ManagedTraveler t) -> t.tickTimings[total].percentile(99)).reversed());
+
+        lines.add("Slowest travelers by p99 tick (us):");
+        for (int i = 0; i < Math.min(topN, ranked.size()); i++)
+        {
+            PhaseHistogram[] timings = ranked.get(i).tickTimings;
+            StringBuilder sb = new StringBuilder();
+            sb.append("  ").append(i + 1).append(". ").append(ranked.get(i).getPlayer().getName().getString())
+                .append(": ").append(summarize(timings[total]));
+            for (Phase phase : PHASES) {
+                if (!phase.perTraveler || phase == Phase.TRAVELER_TOTAL) continue;
+                sb.append(" | ").append(phase.label).append(" p99 ")
+                    .append(micros(timings[phase.ordinal()].percentile(99)));
+            }
+            lines.add(sb.toString());
+        }
+        if (ranked.isEmpty()) lines.add("  none recorded");
+        return lines;
+    }
+
+    private static String summarize(PhaseHistogram h) {
+        return h.getCount() + " " + micros(h.getMean()) + " " + micros(h.percentile(50))
+            + " " + micros(h.percentile(99)) + " " + micros(h.getMax());
+    }
+
+    private static String micros(long nanos) {
+        return String.valueOf(nanos / 1000);
+    }
+}
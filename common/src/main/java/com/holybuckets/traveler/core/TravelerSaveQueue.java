@@ -0,0 +1,90 @@
+package com.holybuckets.traveler.core;
+
+import com.holybuckets.foundation.player.ManagedPlayer;
+import com.holybuckets.traveler.LoggerProject;
+import net.minecraft.server.level.ServerPlayer;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * TravelerSaveQueue - Write-behind saving of traveler data
+ *
+ * Changes mark a traveler dirty instead of saving right away. A dirty traveler is saved once
+ * it has been dirty for SAVE_DELAY_TICKS, so repeated changes within that window cost a single
+ * save, and at most MAX_SAVES_PER_TICK travelers are saved in one tick. Leaving the server
+ * flushes the traveler immediately and server stop flushes everyone still dirty.
+ * <p>
+ * Saves run on the server thread: ManagedPlayer.save serializes the live player data and
+ * writes it in one call, so it cannot be handed to another thread safely. The queue bounds
+ * how often and how many saves run per tick instead.
+ */
+class TravelerSaveQueue {
+
+    public static final String CLASS_ID = "023";
+
+    static final int SAVE_DELAY_TICKS = 200;        //10s
+    static final int MAX_SAVES_PER_TICK = 2;
+
+    private final Map<ManagedTraveler, Long> dirtySince;    //insertion order = oldest first
+    private long tick;
+
+    TravelerSaveQueue() {
+        this.dirtySince = new LinkedHashMap<>();
+        this.tick = 0;
+    }
+
+    void markDirty(ManagedTraveler traveler) {
+        dirtySince.putIfAbsent(traveler, tick);
+    }
+
+    /**
+     * Saves travelers that have been dirty for the full delay, oldest first
+     */
+    void tick()
+    {
+        tick++;
+        int saved = 0;
+        Iterator<Map.Entry<ManagedTraveler, Long>> it = dirtySince.entrySet().iterator();
+        while (it.hasNext() && saved < MAX_SAVES_PER_TICK)
+        {
+            Map.Entry<ManagedTraveler, Long> entry = it.next();
+            if (tick - entry.getValue() < SAVE_DELAY_TICKS) break;
+            it.remove();
+            save(entry.getKey());
+            saved++;
+        }
+    }
+
+    /**
+     * Saves the traveler now if it has unsaved changes
+     */
+    void flush(ManagedTraveler traveler)
+    {
+        if (dirtySince.remove(traveler) == null) return;
+        save(traveler);
+    }
+
+    void flushAll()
+    {
+        while (!dirtySince.isEmpty()) {
+            flush(dirtySince.keySet().iterator().next());
+        }
+    }
+
+    void clear() {
+        dirtySince.clear();
+        tick = 0;
+    }
+
+    private static void save(ManagedTraveler traveler)
+    {
+        if (!(traveler.getPlayer() instanceof ServerPlayer serverPlayer)) return;
+        try {
+            ManagedPlayer.save(serverPlayer);
+        } catch (Exception e) {
+            LoggerProject.logError("023001", "Error saving traveler " + serverPlayer.getName().getString() + ": " + e.getMessage());
+        }
+    }
+}
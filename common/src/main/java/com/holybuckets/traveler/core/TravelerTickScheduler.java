@@ -0,0 +1,179 @@
+package com.holybuckets.traveler.core;
+
+import com.holybuckets.traveler.LoggerProject;
+
+import java.util.*;
+import java.util.function.Consumer;
+
+/**
+ * TravelerTickScheduler - Spreads per-traveler tick work across the update interval
+ *
+ * Travelers are split into INTERVAL shards, one shard becomes due each server tick.
+ * Due travelers are processed FIFO until the per-tick nanosecond budget is spent,
+ * anything left over is deferred to the next tick. A traveler that has waited a
+ * full interval past its due tick is processed regardless of budget so no player starves.
+ */
+class TravelerTickScheduler {
+
+    public static final String CLASS_ID = "022";
+
+    static final int INTERVAL = 11;
+    static final long TICK_BUDGET_NANOS = 2_000_000L;  //2ms of the 50ms tick
+
+    private final List<List<ManagedTraveler>> shards;
+    private final Deque<Entry> pending;
+    private final Set<ManagedTraveler> queued;
+
+    private final long[] shardDueTick;      //tick the shard was last enqueued
+    private final int[] shardRemaining;     //travelers of the shard still pending
+    private final long[] shardLag;          //ticks between due and completion, last cycle
+    private final long[] shardMaxLag;
+
+    private long tick;
+
+    TravelerTickScheduler()
+    {
+        this.shards = new ArrayList<>(INTERVAL);
+        for (int i = 0; i < INTERVAL; i++) {
+            shards.add(new ArrayList<>());
+        }
+        this.pending = new ArrayDeque<>();
+        this.queued = Collections.newSetFromMap(new IdentityHashMap<>());
+
+        this.shardDueTick = new long[INTERVAL];
+        this.shardRemaining = new int[INTERVAL];
+        this.shardLag = new long[INTERVAL];
+        this.shardMaxLag = new long[INTERVAL];
+        this.tick = 0;
+    }
+
+    /**
+     * Advances the scheduler one server tick, running work for due travelers within budget
+     * @param travelers all currently registered travelers
+     * @param work per traveler tick work
+     */
+    void tick(Collection<ManagedTraveler> travelers, Consumer<ManagedTraveler> work)
+    {
+        int shard = (int) (tick % INTERVAL);
+        if (shard == 0) {
+            rebuildShards(travelers);
+        }
+        enqueueShard(shard);
+
+        long start = System.nanoTime();
+        boolean first = true;
+        while (!pending.isEmpty())
+        {
+            Entry head = pending.peekFirst();
+            boolean starved = (tick - head.dueTick) >= INTERVAL;
+            boolean overBudget = (System.nanoTime() - start) >= TICK_BUDGET_NANOS;
+            if (overBudget && !first && !starved) break;
+
+            pending.pollFirst();
+            queued.remove(head.traveler);
+            first = false;
+
+            if (starved && LoggerProject.allowDebug("022001")) {
+                LoggerProject.logDebugAllowed("022001", "Traveler tick starved for " + (tick - head.dueTick) + " ticks, forcing update");
+            }
+
+            try {
+                work.accept(head.traveler);
+            } catch (Exception e) {
+                LoggerProject.logError("022002", "Error running traveler tick: " + e.getMessage());
+            }
+            completeEntry(head);
+        }
+
+        tick++;
+    }
+
+    private void rebuildShards(Collection<ManagedTraveler> travelers)
+    {
+        for (List<ManagedTraveler> s : shards) {
+            s.clear();
+        }
+        int i = 0;
+        for (ManagedTraveler traveler : travelers) {
+            shards.get(i++ % INTERVAL).add(traveler);
+        }
+    }
+
+    private void enqueueShard(int shard)
+    {
+        shardDueTick[shard] = tick;
+        for (ManagedTraveler traveler : shards.get(shard)) {
+            if (!queued.add(traveler)) continue;    //still deferred from last cycle
+            pending.addLast(new Entry(traveler, shard, tick));
+            shardRemaining[shard]++;
+        }
+    }
+
+    private void completeEntry(Entry entry)
+    {
+        int shard = entry.shard;
+        if (--shardRemaining[shard] > 0) return;
+        long lag = tick - entry.dueTick;
+        shardLag[shard] = lag;
+        shardMaxLag[shard] = Math.max(shardMaxLag[shard], lag);
+    }
+
+    /**
+     * Clears all pending work and lag statistics, call on server start
+     */
+    void clear()
+    {
+        for (List<ManagedTraveler> s : shards) {
+            s.clear();
+        }
+        pending.clear();
+        queued.clear();
+        Arrays.fill(shardDueTick, 0);
+        Arrays.fill(shardRemaining, 0);
+        Arrays.fill(shardLag, 0);
+        Arrays.fill(shardMaxLag, 0);
+        tick = 0;
+    }
+
+    /**
+     * True if the tick that just ran was the given shard's due tick
+     */
+    boolean isShardTick(int shard) {
+        return (tick - 1) % INTERVAL == shard;
+    }
+
+    //** STATISTICS
+
+    /**
+     * Report lines: travelers still pending, then per shard the lag in ticks between due and
+     * completion for the last cycle and the max since the last reset
+     */
+    List<String> report()
+    {
+        List<String> lines = new ArrayList<>();
+        lines.add("Traveler scheduler: " + pending.size() + " pending");
+        StringBuilder sb = new StringBuilder("  shard lag (ticks) last/max:");
+        for (int i = 0; i < INTERVAL; i++) {
+            sb.append(' ').append(i).append('=').append(shardLag[i]).append('/').append(shardMaxLag[i]);
+        }
+        lines.add(sb.toString());
+        return lines;
+    }
+
+    void resetStats() {
+        Arrays.fill(shardLag, 0);
+        Arrays.fill(shardMaxLag, 0);
+    }
+
+    private static class Entry {
+        private final ManagedTraveler traveler;
+        private final int shard;
+        private final long dueTick;
+
+        private Entry(ManagedTraveler traveler, int shard, long dueTick) {
+            this.traveler = traveler;
+            this.shard = shard;
+            this.dueTick = dueTick;
+        }
+    }
+}
@@ -1,5 +1,7 @@
 package com.holybuckets.traveler.item;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import net.blay09.mods.balm.api.Balm;
 import net.minecraft.nbt.CompoundTag;
 import net.minecraft.network.chat.Component;
@@ -22,11 +24,16 @@ public abstract class InventoryHolderItem extends Item {
 
     private final String itemId;
     private final int inventorySize;
+    private final String[] storedItemKeys;
 
     public InventoryHolderItem(String itemId, int inventorySize) {
         super(Balm.getItems().itemProperties().stacksTo(1)); // Non-stackable due to NBT storage
         this.itemId = itemId;
         this.inventorySize = inventorySize;
+        this.storedItemKeys = new String[inventorySize];
+        for (int i = 0; i < inventorySize; i++) {
+            storedItemKeys[i] = "StoredItem" + i;
+        }
     }
 
     @Override
@@ -35,7 +42,7 @@ public abstract class InventoryHolderItem extends Item {
         tooltipComponents.add(Component.translatable("item.hbs_traveler_rewards." + itemId + ".desc"));
 
         // Display stored item information
-        ItemStack storedItem = getStoredItem(stack, 0);
+        ItemStack storedItem = peekStoredItem(stack, 0);
         if (!storedItem.isEmpty()) {
             tooltipComponents.add(Component.translatable("item.hbs_traveler_rewards.contains", storedItem.getHoverName()));
         } else {
@@ -46,22 +53,48 @@ public abstract class InventoryHolderItem extends Item {
     @Override
     public boolean isFoil(ItemStack stack) {
         // Show enchanted glint if item contains something
-        return !getStoredItem(stack, 0).isEmpty();
+        return !peekStoredItem(stack, 0).isEmpty();
     }
 
     /**
-     * Gets the stored item at the specified slot index
+     * Gets a copy of the stored item at the specified slot index, safe to modify
      */
     public ItemStack getStoredItem(ItemStack holderStack, int slot) {
+        ItemStack stored = peekStoredItem(holderStack, slot);
+        return stored.isEmpty() ? ItemStack.EMPTY : stored.copy();
+    }
+
+    /**
+     * Gets the stored item at the specified slot index without copying it or creating a tag
+     * on the holder. The returned stack is shared and must not be modified.
+     */
+    public ItemStack peekStoredItem(ItemStack holderStack, int slot) {
         if (slot < 0 || slot >= inventorySize) {
             return ItemStack.EMPTY;
         }
 
-        CompoundTag tag = holderStack.getOrCreateTag();
-        if (tag.contains("StoredItem" + slot)) {
-            return ItemStack.of(tag.getCompound("StoredItem" + slot));
+        CompoundTag tag = holderStack.getTag();
+        if (tag == null || !tag.contains(storedItemKeys[slot])) {
+            return ItemStack.EMPTY;
+        }
+        return decode(tag.getCompound(storedItemKeys[slot]));
+    }
+
+    private static final int DECODED_CACHE_SIZE = 512;
+
+    // Decoded stored items keyed by the identity of their tag, setStoredItem always writes a new tag
+    private static final Cache<CompoundTag, ItemStack> DECODED = CacheBuilder.newBuilder()
+        .weakKeys()
+        .maximumSize(DECODED_CACHE_SIZE)
+        .build();
+
+    private static ItemStack decode(CompoundTag itemTag) {
+        ItemStack decoded = DECODED.getIfPresent(itemTag);
+        if (decoded == null) {
+            decoded = ItemStack.of(itemTag);
+            DECODED.put(itemTag, decoded);
         }
-        return ItemStack.EMPTY;
+        return decoded;
     }
 
     /**
@@ -72,13 +105,13 @@ public abstract class InventoryHolderItem extends Item {
             return;
         }
 
-        CompoundTag tag = holderStack.getOrCreateTag();
         if (itemToStore.isEmpty()) {
-            tag.remove("StoredItem" + slot);
+            CompoundTag tag = holderStack.getTag();
+            if (tag != null) tag.remove(storedItemKeys[slot]);
         } else {
             CompoundTag itemTag = new CompoundTag();
             itemToStore.save(itemTag);
-            tag.put("StoredItem" + slot, itemTag);
+            holderStack.getOrCreateTag().put(storedItemKeys[slot], itemTag);
         }
     }
 
@@ -107,7 +140,7 @@ public abstract class InventoryHolderItem extends Item {
      */
     public boolean hasStoredItems(ItemStack holderStack) {
         for (int i = 0; i < inventorySize; i++) {
-            if (!getStoredItem(holderStack, i).isEmpty()) {
+            if (!peekStoredItem(holderStack, i).isEmpty()) {
                 return true;
             }
         }
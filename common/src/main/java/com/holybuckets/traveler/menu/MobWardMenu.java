@@ -2,6 +2,7 @@ package com.holybuckets.traveler.menu;
 
 import com.holybuckets.foundation.HBUtil;
 import com.holybuckets.traveler.config.ModConfig;
+import com.holybuckets.traveler.core.ItemImplementation;
 import net.minecraft.nbt.CompoundTag;
 import net.minecraft.network.FriendlyByteBuf;
 import net.minecraft.world.entity.EntityType;
@@ -68,6 +69,7 @@ public class MobWardMenu extends AbstractContainerMenu {
      */
     private void saveFilterItemToNBT() {
         ItemStack filterItem = this.slots.get(0).getItem();
+        ItemImplementation.getInstance().invalidateMobWardFilter(mobWardStack);
         MobWardContainer.saveFilterItem(mobWardStack, filterItem);
         updateWardMessage();
     }
@@ -0,0 +1,13 @@
+package com.holybuckets.traveler.mixin;
+
+import net.minecraft.world.level.storage.loot.entries.CompositeEntryBase;
+import net.minecraft.world.level.storage.loot.entries.LootPoolEntryContainer;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.gen.Accessor;
+
+@Mixin(CompositeEntryBase.class)
+public interface CompositeEntryBaseAccessor {
+
+    @Accessor("children")
+    LootPoolEntryContainer[] getChildren();
+}
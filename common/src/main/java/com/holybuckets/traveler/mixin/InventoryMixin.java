@@ -0,0 +1,92 @@
+package com.holybuckets.traveler.mixin;
+
+import com.holybuckets.traveler.core.InventoryChangeTracker;
+import net.minecraft.nbt.ListTag;
+import net.minecraft.world.entity.player.Inventory;
+import net.minecraft.world.item.ItemStack;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.Unique;
+import org.spongepowered.asm.mixin.injection.At;
+import org.spongepowered.asm.mixin.injection.Inject;
+import org.spongepowered.asm.mixin.injection.callback.CallbackInfo;
+import org.spongepowered.asm.mixin.injection.callback.CallbackInfoReturnable;
+
+@Mixin(Inventory.class)
+public abstract class InventoryMixin implements InventoryChangeTracker {
+
+    @Unique
+    private long hbs_traveler$changedSlots = ALL_SLOTS;
+
+    @Override
+    public long hbs_traveler$pollChangedSlots() {
+        long changed = this.hbs_traveler$changedSlots;
+        this.hbs_traveler$changedSlots = 0L;
+        return changed;
+    }
+
+    @Override
+    public void hbs_traveler$markSlotChanged(int slot) {
+        if (slot < 0 || slot >= Long.SIZE) {
+            this.hbs_traveler$changedSlots = ALL_SLOTS;
+        } else {
+            this.hbs_traveler$changedSlots |= (1L << slot);
+        }
+    }
+
+    //** Single slot changes
+    //setItem, removeItem and removeItemNoUpdate reduce their index while walking the compartments,
+    //so the slot is captured at HEAD while it is still the inventory slot
+
+    @Inject(method = "setItem", at = @At("HEAD"))
+    private void onSetItem(int slot, ItemStack stack, CallbackInfo ci) {
+        hbs_traveler$markSlotChanged(slot);
+    }
+
+    @Inject(method = "removeItem(II)Lnet/minecraft/world/item/ItemStack;", at = @At("HEAD"))
+    private void onRemoveItem(int slot, int amount, CallbackInfoReturnable<ItemStack> cir) {
+        hbs_traveler$markSlotChanged(slot);
+    }
+
+    @Inject(method = "removeItemNoUpdate", at = @At("HEAD"))
+    private void onRemoveItemNoUpdate(int slot, CallbackInfoReturnable<ItemStack> cir) {
+        hbs_traveler$markSlotChanged(slot);
+    }
+
+    @Inject(method = "addResource(ILnet/minecraft/world/item/ItemStack;)I", at = @At("HEAD"))
+    private void onAddResource(int slot, ItemStack stack, CallbackInfoReturnable<Integer> cir) {
+        hbs_traveler$markSlotChanged(slot);
+    }
+
+    //slot -1 means "any free slot", marks all. RETURN covers the early return for damaged items
+    @Inject(method = "add(ILnet/minecraft/world/item/ItemStack;)Z", at = @At("RETURN"))
+    private void onAdd(int slot, ItemStack stack, CallbackInfoReturnable<Boolean> cir) {
+        hbs_traveler$markSlotChanged(slot);
+    }
+
+    //** Bulk changes
+
+    @Inject(method = "removeItem(Lnet/minecraft/world/item/ItemStack;)V", at = @At("TAIL"))
+    private void onRemoveItemStack(ItemStack stack, CallbackInfo ci) {
+        hbs_traveler$markSlotChanged(-1);
+    }
+
+    @Inject(method = "replaceWith", at = @At("TAIL"))
+    private void onReplaceWith(Inventory other, CallbackInfo ci) {
+        hbs_traveler$markSlotChanged(-1);
+    }
+
+    @Inject(method = "load", at = @At("TAIL"))
+    private void onLoad(ListTag tag, CallbackInfo ci) {
+        hbs_traveler$markSlotChanged(-1);
+    }
+
+    @Inject(method = "dropAll", at = @At("TAIL"))
+    private void onDropAll(CallbackInfo ci) {
+        hbs_traveler$markSlotChanged(-1);
+    }
+
+    @Inject(method = "clearContent", at = @At("TAIL"))
+    private void onClearContent(CallbackInfo ci) {
+        hbs_traveler$markSlotChanged(-1);
+    }
+}
@@ -0,0 +1,32 @@
+package com.holybuckets.traveler.mixin;
+
+import com.holybuckets.traveler.networking.BlockStateApplyQueue;
+import net.minecraft.client.Minecraft;
+import net.minecraft.client.gui.screens.Screen;
+import net.minecraft.client.multiplayer.ClientLevel;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.injection.At;
+import org.spongepowered.asm.mixin.injection.Inject;
+import org.spongepowered.asm.mixin.injection.callback.CallbackInfo;
+
+@Mixin(Minecraft.class)
+public abstract class MinecraftMixin {
+
+    //Once per frame on the client main thread, before the frame is rendered
+    @Inject(method = "runTick", at = @At("HEAD"))
+    private void onRunTick(boolean renderLevel, CallbackInfo ci) {
+        BlockStateApplyQueue.drain();
+    }
+
+    //Disconnect, drop the queued updates and the old player with its level
+    @Inject(method = "clearLevel(Lnet/minecraft/client/gui/screens/Screen;)V", at = @At("HEAD"))
+    private void onClearLevel(Screen screen, CallbackInfo ci) {
+        BlockStateApplyQueue.reset();
+    }
+
+    //Level change (respawn, dimension travel), queued updates belong to the old level
+    @Inject(method = "setLevel", at = @At("HEAD"))
+    private void onSetLevel(ClientLevel level, CallbackInfo ci) {
+        BlockStateApplyQueue.reset();
+    }
+}
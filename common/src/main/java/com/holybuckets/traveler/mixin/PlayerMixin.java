@@ -0,0 +1,36 @@
+package com.holybuckets.traveler.mixin;
+
+import com.holybuckets.traveler.core.InventoryChangeTracker;
+import net.minecraft.world.entity.EquipmentSlot;
+import net.minecraft.world.entity.player.Inventory;
+import net.minecraft.world.entity.player.Player;
+import net.minecraft.world.item.ItemStack;
+import org.spongepowered.asm.mixin.Final;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.Shadow;
+import org.spongepowered.asm.mixin.injection.At;
+import org.spongepowered.asm.mixin.injection.Inject;
+import org.spongepowered.asm.mixin.injection.callback.CallbackInfo;
+
+/**
+ * setItemSlot, and setItemInHand through it, write the inventory lists directly
+ * without going through Inventory.setItem, mark the written slot here
+ */
+@Mixin(Player.class)
+public abstract class PlayerMixin {
+
+    @Shadow
+    @Final
+    private Inventory inventory;
+
+    @Inject(method = "setItemSlot", at = @At("HEAD"))
+    private void onSetItemSlot(EquipmentSlot slot, ItemStack stack, CallbackInfo ci)
+    {
+        InventoryChangeTracker tracker = (InventoryChangeTracker) this.inventory;
+        switch (slot.getType()) {
+            case HAND -> tracker.hbs_traveler$markSlotChanged(
+                slot == EquipmentSlot.MAINHAND ? inventory.selected : Inventory.SLOT_OFFHAND);
+            case ARMOR -> tracker.hbs_traveler$markSlotChanged(inventory.items.size() + slot.getIndex());
+        }
+    }
+}
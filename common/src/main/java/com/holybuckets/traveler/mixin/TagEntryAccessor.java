@@ -0,0 +1,14 @@
+package com.holybuckets.traveler.mixin;
+
+import net.minecraft.tags.TagKey;
+import net.minecraft.world.item.Item;
+import net.minecraft.world.level.storage.loot.entries.TagEntry;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.gen.Accessor;
+
+@Mixin(TagEntry.class)
+public interface TagEntryAccessor {
+
+    @Accessor("tag")
+    TagKey<Item> getTag();
+}
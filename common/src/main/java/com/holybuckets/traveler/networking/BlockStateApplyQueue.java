@@ -0,0 +1,203 @@
+package com.holybuckets.traveler.networking;
+
+import com.holybuckets.foundation.model.ManagedChunk;
+import com.holybuckets.traveler.LoggerProject;
+import it.unimi.dsi.fastutil.longs.Long2ObjectLinkedOpenHashMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import net.minecraft.core.BlockPos;
+import net.minecraft.core.SectionPos;
+import net.minecraft.world.entity.player.Player;
+import net.minecraft.world.level.LevelAccessor;
+import net.minecraft.world.level.block.state.BlockState;
+
+import java.util.*;
+
+/**
+ * BlockStateApplyQueue - Client side queue of received block state updates
+ *
+ * Packets are merged into pending chunk sections as they arrive on the network thread,
+ * a later update to the same position replaces the earlier one. Sections are applied FIFO
+ * on the client main thread once per frame within a time budget. The queue holds at most
+ * HARD_CAP_BLOCKS positions, past SOFT_CAP_BLOCKS the frame budget is raised to catch up
+ * and past the hard cap new positions are dropped.
+ */
+public class BlockStateApplyQueue {
+
+    static final int SOFT_CAP_BLOCKS = 16_384;
+    static final int HARD_CAP_BLOCKS = 65_536;
+    static final long FRAME_BUDGET_NANOS = 1_000_000L;          //1ms per frame
+    static final long CATCH_UP_BUDGET_NANOS = 4_000_000L;       //over soft cap
+
+    private static final Object LOCK = new Object();
+    private static final Long2ObjectLinkedOpenHashMap<PendingSection> PENDING = new Long2ObjectLinkedOpenHashMap<>();
+    private static Player player;
+    private static volatile int pendingBlocks = 0;
+
+    //Statistics
+    private static long queuedCount = 0;
+    private static long mergedCount = 0;
+    private static long droppedCount = 0;
+    private static long appliedCount = 0;
+
+    /**
+     * Merges a received packet into the pending sections, called from the network thread
+     */
+    static void enqueue(Player p, BlockStateUpdatesMessage message)
+    {
+        if(p.level() != message.world) {
+            //Sent for a level the player already left
+            int stale = 0;
+            for (List<BlockPos> positions : message.blockStates.values()) stale += positions.size();
+            synchronized (LOCK) { droppedCount += stale; }
+            return;
+        }
+
+        int dropped = 0;
+        synchronized (LOCK)
+        {
+            if(player != p) {
+                droppedCount += pendingBlocks;
+                clearPending();
+                player = p;
+            }
+
+            for (Map.Entry<BlockState, List<BlockPos>> entry : message.blockStates.entrySet())
+            {
+                for (BlockPos pos : entry.getValue())
+                {
+                    long sectionKey = SectionPos.asLong(pos);
+                    PendingSection section = PENDING.get(sectionKey);
+                    if(section != null && section.world != message.world) {
+                        //Dimension changed under this section, the old updates are stale
+                        droppedCount += section.blocks.size();
+                        pendingBlocks -= section.blocks.size();
+                        PENDING.remove(sectionKey);
+                        section = null;
+                    }
+
+                    long posKey = pos.asLong();
+                    if(section != null && section.blocks.containsKey(posKey)) {
+                        section.blocks.put(posKey, entry.getKey());
+                        mergedCount++;
+                        continue;
+                    }
+
+                    if(pendingBlocks >= HARD_CAP_BLOCKS) {
+                        dropped++;
+                        continue;
+                    }
+
+                    if(section == null) {
+                        section = new PendingSection(message.world);
+                        PENDING.put(sectionKey, section);
+                    }
+                    section.blocks.put(posKey, entry.getKey());
+                    pendingBlocks++;
+                    queuedCount++;
+                }
+            }
+            droppedCount += dropped;
+        }
+
+        if(dropped > 0)
+            LoggerProject.logWarning("014001", "Block state apply queue full, dropped " + dropped + " updates");
+    }
+
+    /**
+     * Applies pending sections on the client main thread until the frame budget is spent,
+     * at least one section is applied per call
+     */
+    public static void drain()
+    {
+        if(pendingBlocks == 0) return;   //volatile peek, avoids the lock on idle frames
+
+        long start = System.nanoTime();
+        boolean first = true;
+        while (true)
+        {
+            LevelAccessor world;
+            PendingSection section;
+            long budget;
+            synchronized (LOCK)
+            {
+                if(PENDING.isEmpty()) {
+                    logBurstSummary();
+                    return;
+                }
+                budget = (pendingBlocks > SOFT_CAP_BLOCKS) ? CATCH_UP_BUDGET_NANOS : FRAME_BUDGET_NANOS;
+                if(!first && (System.nanoTime() - start) >= budget) return;
+
+                section = PENDING.removeFirst();
+                pendingBlocks -= section.blocks.size();
+                world = section.world;
+                if(player == null || player.level() != world) {
+                    droppedCount += section.blocks.size();
+                    continue;
+                }
+                appliedCount += section.blocks.size();
+            }
+
+            first = false;
+            ManagedChunk.updateChunkBlockStates(world, section.toUpdates());
+        }
+    }
+
+    /**
+     * Drops everything queued and the player reference, called when the client leaves a level
+     * so the old player and its ClientLevel are not kept alive until the next packet
+     */
+    public static void reset()
+    {
+        synchronized (LOCK)
+        {
+            droppedCount += pendingBlocks;
+            clearPending();
+            player = null;
+            logBurstSummary();
+        }
+    }
+
+    private static void clearPending() {
+        PENDING.clear();
+        pendingBlocks = 0;
+    }
+
+    //** STATISTICS
+
+    /**
+     * Called under LOCK once the queue is empty, logs what the burst of updates that just
+     * finished amounted to and resets the counters
+     */
+    private static void logBurstSummary()
+    {
+        if(queuedCount == 0 && droppedCount == 0) return;
+        final long queued = queuedCount, merged = mergedCount, dropped = droppedCount, applied = appliedCount;
+        LoggerProject.logDebug("014002", () -> "Block state apply queue drained, queued " + queued
+            + ", merged " + merged + ", dropped " + dropped + ", applied " + applied);
+        queuedCount = 0;
+        mergedCount = 0;
+        droppedCount = 0;
+        appliedCount = 0;
+    }
+
+    private static class PendingSection {
+        private final LevelAccessor world;
+        private final Long2ObjectMap<BlockState> blocks;
+
+        private PendingSection(LevelAccessor world) {
+            this.world = world;
+            this.blocks = new Long2ObjectOpenHashMap<>();
+        }
+
+        private Map<BlockState, List<BlockPos>> toUpdates()
+        {
+            Map<BlockState, List<BlockPos>> updates = new HashMap<>();
+            for (Long2ObjectMap.Entry<BlockState> entry : blocks.long2ObjectEntrySet()) {
+                updates.computeIfAbsent(entry.getValue(), s -> new ArrayList<>())
+                    .add(BlockPos.of(entry.getLongKey()));
+            }
+            return updates;
+        }
+    }
+}
@@ -14,7 +14,6 @@ import java.util.Map;
 public class BlockStateUpdatesMessage {
 
     public static final String LOCATION = "block_state_updates";
-    private static final Integer BLOCKPOS_SIZE = 48;    //16 bytes per number x3 = 48 bytes
     LevelAccessor world;
     Map<BlockState, List<BlockPos>> blockStates;
 
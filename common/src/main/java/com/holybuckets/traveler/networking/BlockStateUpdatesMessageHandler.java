@@ -1,13 +1,18 @@
 package com.holybuckets.traveler.networking;
 
 import com.holybuckets.foundation.HBUtil;
-import com.holybuckets.foundation.model.ManagedChunk;
+import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
+import it.unimi.dsi.fastutil.longs.LongSet;
 import net.minecraft.core.BlockPos;
+import net.minecraft.core.SectionPos;
+import net.minecraft.server.level.ChunkMap;
+import net.minecraft.server.level.ServerLevel;
 import net.minecraft.server.level.ServerPlayer;
-import net.minecraft.world.entity.player.Player;
+import net.minecraft.world.level.ChunkPos;
 import net.minecraft.world.level.LevelAccessor;
 import net.minecraft.world.level.block.state.BlockState;
-import org.apache.commons.lang3.tuple.Pair;
 
 import java.util.*;
 
@@ -19,63 +24,132 @@ public class BlockStateUpdatesMessageHandler {
 
     /**
      * Create and fire the packet. There is an upper limit of 32KB per pack sent enforced by Minecraft.
-     * In order to avoid this, we will send multiple packets in increments of 512 blocks.
+     * In order to avoid this, packets are filled against a worst case estimate of their encoded size
+     * and sent before Codecs.MAX_BLOCK_STATE_BYTES would be exceeded.
+     * <p>
+     * Updates are grouped by chunk section and a section is only split across packets when it does not
+     * fit in an empty one. Sections of the same chunk column share a packet, which is sent only to players
+     * whose chunk map tracks that chunk.
      * @param world
      * @param updates
      * @return
      */
     static void createAndFire(LevelAccessor world, Map<BlockState, List<BlockPos>> updates)
     {
-        //1. Create new instances of updates
-        List< Map<BlockState, List<BlockPos>> > messages = new ArrayList<>();
+        if(!(world instanceof ServerLevel level)) return;
 
-        //2. Create map of blockState to ListIterator for each list
-        Queue<Pair<BlockState, Iterator<BlockPos>>> iterators = new LinkedList<>();
+        //1. Group updates by chunk column, then by section within the column
+        Long2ObjectMap<Long2ObjectMap<Map<BlockState, List<BlockPos>>>> columns = new Long2ObjectOpenHashMap<>();
         for (Map.Entry<BlockState, List<BlockPos>> entry : updates.entrySet()) {
-            if(entry.getValue().size() == 0) continue;
-            iterators.add(Pair.of(entry.getKey(), entry.getValue().listIterator()));
+            for (BlockPos pos : entry.getValue()) {
+                long column = ChunkPos.asLong(pos);
+                long section = SectionPos.asLong(pos);
+                columns.computeIfAbsent(column, c -> new Long2ObjectOpenHashMap<>())
+                    .computeIfAbsent(section, s -> new HashMap<>())
+                    .computeIfAbsent(entry.getKey(), b -> new ArrayList<>())
+                    .add(pos);
+            }
         }
 
-        //3. for up to MAX_SIZE = 512 blocks, add to blockStates using iterators
-        final int MAX_SIZE = 512;
-        Pair<BlockState, Iterator<BlockPos>> current = iterators.poll();
-
-        while(current != null)
+        //2. For each column, fill packets section by section and send to players tracking the chunk
+        ChunkMap chunkMap = level.getChunkSource().chunkMap;
+        for (Long2ObjectMap.Entry<Long2ObjectMap<Map<BlockState, List<BlockPos>>>> column : columns.long2ObjectEntrySet())
         {
-            Map<BlockState, List<BlockPos>> blockStateUpdates = new HashMap<>();
-            for(int i = 0; i < MAX_SIZE; i++)
+            List<ServerPlayer> players = chunkMap.getPlayers(new ChunkPos(column.getLongKey()), false);
+            if(players.isEmpty()) continue;
+
+            Batch batch = new Batch();
+            for (Map<BlockState, List<BlockPos>> section : column.getValue().values())
             {
-                if( !current.getRight().hasNext() )
-                    current = iterators.poll();
+                if(!batch.isEmpty() && !batch.fits(section)) {
+                    fire(level, batch.blocks, players);
+                    batch = new Batch();
+                }
+
+                if(batch.fits(section)) {
+                    batch.addSection(section);
+                    continue;
+                }
+
+                //Too large for an empty packet, split it position by position
+                for (Map.Entry<BlockState, List<BlockPos>> entry : section.entrySet()) {
+                    for (BlockPos pos : entry.getValue()) {
+                        if(!batch.isEmpty() && !batch.fits(entry.getKey(), pos)) {
+                            fire(level, batch.blocks, players);
+                            batch = new Batch();
+                        }
+                        batch.add(entry.getKey(), pos);
+                    }
+                }
+            }
 
-                if(current == null)
-                    break;
+            if(!batch.isEmpty())
+                fire(level, batch.blocks, players);
+        }
 
-                blockStateUpdates.putIfAbsent(current.getLeft(), new ArrayList<>());
-                List<BlockPos> positions = blockStateUpdates.get(current.getLeft());
-                positions.add(current.getRight().next());
-            }
+    }
+
+    /**
+     * Updates of one packet with a worst case estimate of their encoded size, see Codecs
+     */
+    private static class Batch {
+        private final Map<BlockState, List<BlockPos>> blocks = new HashMap<>();
+        private final LongSet sections = new LongOpenHashSet();
+        private int bytes = Codecs.HEADER_BYTES;
+
+        private boolean isEmpty() {
+            return blocks.isEmpty();
+        }
 
-            if(blockStateUpdates.size() > 0)
-                messages.add(blockStateUpdates);
+        private int cost(BlockState state, long section, int positions) {
+            return (blocks.containsKey(state) ? 0 : Codecs.PALETTE_ENTRY_BYTES)
+                + (sections.contains(section) ? 0 : Codecs.SECTION_HEADER_BYTES)
+                + positions * Codecs.POSITION_BYTES;
         }
 
+        private boolean fits(BlockState state, BlockPos pos) {
+            return bytes + cost(state, SectionPos.asLong(pos), 1) <= Codecs.MAX_BLOCK_STATE_BYTES;
+        }
 
-        BlockPos pos = updates.values().stream().findFirst().get().get(0);
-        final int CHUNKS_RANGE = 40;
-        List<ServerPlayer> playersInUpdateRange = HBUtil.PlayerUtil.getAllPlayersInBlockRange(pos, 16*CHUNKS_RANGE);
-        for(Map<BlockState, List<BlockPos>> message : messages) {
-            BlockStateUpdatesMessage packet = new BlockStateUpdatesMessage(world, message);
-            playersInUpdateRange.stream().forEach(player -> HBUtil.NetworkUtil.serverSendToPlayer(player, packet));
+        private boolean fits(Map<BlockState, List<BlockPos>> section)
+        {
+            int added = 0;
+            boolean newSection = true;
+            for (Map.Entry<BlockState, List<BlockPos>> entry : section.entrySet()) {
+                if(entry.getValue().isEmpty()) continue;
+                if(newSection) {
+                    newSection = false;
+                    added += sections.contains(SectionPos.asLong(entry.getValue().get(0))) ? 0 : Codecs.SECTION_HEADER_BYTES;
+                }
+                added += (blocks.containsKey(entry.getKey()) ? 0 : Codecs.PALETTE_ENTRY_BYTES)
+                    + entry.getValue().size() * Codecs.POSITION_BYTES;
+            }
+            return bytes + added <= Codecs.MAX_BLOCK_STATE_BYTES;
         }
 
-    }
+        private void add(BlockState state, BlockPos pos)
+        {
+            long section = SectionPos.asLong(pos);
+            bytes += cost(state, section, 1);
+            sections.add(section);
+            blocks.computeIfAbsent(state, b -> new ArrayList<>()).add(pos);
+        }
 
+        private void addSection(Map<BlockState, List<BlockPos>> section)
+        {
+            for (Map.Entry<BlockState, List<BlockPos>> entry : section.entrySet()) {
+                if(entry.getValue().isEmpty()) continue;
+                long key = SectionPos.asLong(entry.getValue().get(0));
+                bytes += cost(entry.getKey(), key, entry.getValue().size());
+                sections.add(key);
+                blocks.computeIfAbsent(entry.getKey(), b -> new ArrayList<>()).addAll(entry.getValue());
+            }
+        }
+    }
 
-    private static HashSet<Integer> collisionChecker = new HashSet<>();
-    static void handle(Player player, BlockStateUpdatesMessage message) {
-        if(player.level() != message.world) return;
-        ManagedChunk.updateChunkBlockStates(message.world, message.blockStates);
+    private static void fire(ServerLevel level, Map<BlockState, List<BlockPos>> batch, List<ServerPlayer> players) {
+        BlockStateUpdatesMessage packet = new BlockStateUpdatesMessage(level, batch);
+        players.forEach(player -> HBUtil.NetworkUtil.serverSendToPlayer(player, packet));
     }
 
     /*
@@ -1,26 +1,106 @@
 package com.holybuckets.traveler.networking;
 
 import com.holybuckets.foundation.HBUtil;
+import com.holybuckets.traveler.LoggerProject;
+import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.objects.Object2IntMap;
+import it.unimi.dsi.fastutil.objects.Object2IntOpenHashMap;
 import net.minecraft.core.BlockPos;
+import net.minecraft.core.SectionPos;
 import net.minecraft.network.FriendlyByteBuf;
 import net.minecraft.world.level.LevelAccessor;
+import net.minecraft.world.level.block.Block;
 import net.minecraft.world.level.block.state.BlockState;
 
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
 public class Codecs {
 
     //ManagedChunk
+
+    // Worst case encoded sizes used to fill block state packets, see BlockStateUpdatesMessageHandler
+    static final int MAX_BLOCK_STATE_BYTES = 30_000;    //under the 32KB custom payload limit
+    static final int HEADER_BYTES = 256;                //level id, palette and section counts
+    static final int PALETTE_ENTRY_BYTES = 5;           //block state id varint
+    static final int SECTION_HEADER_BYTES = 8 + 3;      //packed section pos, entry count varint
+    static final int POSITION_BYTES = 2 + 3;            //relative pos short, palette index varint
+
+    /**
+     * Binary layout:
+     * level id, palette size, palette block state ids,
+     * section count, then per section: packed section pos, entry count,
+     * per entry: section relative packed position (short) and palette index (varint)
+     */
     public static final FriendlyByteBuf encodeBlockStateUpdates(BlockStateUpdatesMessage object, FriendlyByteBuf buf) {
+        int start = buf.writerIndex();
         buf.writeUtf(HBUtil.LevelUtil.toLevelId(object.world));
-        buf.writeUtf(HBUtil.BlockUtil.serializeBlockStatePairs(object.blockStates));
+
+        //1. Palette of distinct states in this message
+        Object2IntMap<BlockState> palette = new Object2IntOpenHashMap<>();
+        Long2ObjectMap<IntArrayList> sections = new Long2ObjectOpenHashMap<>();
+        buf.writeVarInt(object.blockStates.size());
+        for (Map.Entry<BlockState, List<BlockPos>> entry : object.blockStates.entrySet())
+        {
+            int paletteIndex = palette.size();
+            palette.put(entry.getKey(), paletteIndex);
+            buf.writeVarInt(Block.getId(entry.getKey()));
+
+            //2. Group positions by section, entry = relative pos << 16 | palette index
+            for (BlockPos pos : entry.getValue()) {
+                long section = SectionPos.asLong(pos);
+                int relative = SectionPos.sectionRelativePos(pos) & 0xFFFF;
+                sections.computeIfAbsent(section, s -> new IntArrayList()).add((relative << 16) | paletteIndex);
+            }
+        }
+
+        buf.writeVarInt(sections.size());
+        for (Long2ObjectMap.Entry<IntArrayList> section : sections.long2ObjectEntrySet())
+        {
+            buf.writeLong(section.getLongKey());
+            IntArrayList entries = section.getValue();
+            buf.writeVarInt(entries.size());
+            for (int i = 0; i < entries.size(); i++) {
+                int packed = entries.getInt(i);
+                buf.writeShort(packed >>> 16);
+                buf.writeVarInt(packed & 0xFFFF);
+            }
+        }
+
+        int written = buf.writerIndex() - start;
+        if (written > MAX_BLOCK_STATE_BYTES)
+            LoggerProject.logWarning("014003", "Block state update packet is " + written + " bytes, over the "
+                + MAX_BLOCK_STATE_BYTES + " byte budget, it was not split before encoding");
         return buf;
     }
 
     public static final BlockStateUpdatesMessage decodeBlockStateUpdates(FriendlyByteBuf buf) {
         LevelAccessor world = HBUtil.LevelUtil.toLevel( HBUtil.LevelUtil.LevelNameSpace.CLIENT, buf.readUtf());
-        Map<BlockState, List<BlockPos>> blocks = HBUtil.BlockUtil.deserializeBlockStatePairs(buf.readUtf());
+
+        int paletteSize = buf.readVarInt();
+        List<BlockState> palette = new ArrayList<>(paletteSize);
+        Map<BlockState, List<BlockPos>> blocks = new HashMap<>();
+        for (int i = 0; i < paletteSize; i++) {
+            BlockState state = Block.stateById(buf.readVarInt());
+            palette.add(state);
+            blocks.putIfAbsent(state, new ArrayList<>());
+        }
+
+        int sectionCount = buf.readVarInt();
+        for (int i = 0; i < sectionCount; i++)
+        {
+            SectionPos section = SectionPos.of(buf.readLong());
+            int entryCount = buf.readVarInt();
+            for (int j = 0; j < entryCount; j++) {
+                short relative = buf.readShort();
+                BlockState state = palette.get(buf.readVarInt());
+                blocks.get(state).add(section.relativeToBlockPos(relative));
+            }
+        }
         return new BlockStateUpdatesMessage(world, blocks);
     }
 
@@ -2,22 +2,23 @@ package com.holybuckets.traveler.networking;
 
 import net.minecraft.world.entity.player.Player;
 
-import java.util.concurrent.ThreadPoolExecutor;
-
 public class Handlers {
 
     public static String CLASS_ID = "014";
 
     private static int RECEIVED = 0;
-    private static ThreadPoolExecutor POOL = new ThreadPoolExecutor(2, 2, 60L, java.util.concurrent.TimeUnit.SECONDS, new java.util.concurrent.LinkedBlockingQueue<Runnable>());
 
     public static void init() {
         //Initializing class
     }
 
+    /**
+     * Received on the network thread, merged into the client apply queue and applied on the main thread
+     * @see BlockStateApplyQueue
+     */
     public static void handleBlockStateUpdates(Player p, BlockStateUpdatesMessage m) {
         RECEIVED++;
-        POOL.submit(() -> BlockStateUpdatesMessageHandler.handle(p, m));
+        BlockStateApplyQueue.enqueue(p, m);
     }
 
 